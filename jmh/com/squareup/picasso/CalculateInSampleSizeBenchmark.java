@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+/**
+ * Sizing the decode of a 12 MP photo for a thumbnail, with power-of-two sampling and with an
+ * exact decode.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculateInSampleSizeBenchmark {
+    private static final int WIDTH = 4032;
+    private static final int HEIGHT = 3024;
+
+    private Request sampled;
+    private Request exact;
+    private final BitmapFactory.Options options = new BitmapFactory.Options();
+
+    @Setup
+    public void setUp() {
+        final Uri uri = Uri.parse("http://example.com/photo.jpg");
+        sampled = new Request.Builder(uri).resize(300, 300).centerCrop().build();
+        exact = new Request.Builder(uri).resize(300, 300).centerCrop().exactDecode().build();
+    }
+
+    @Benchmark
+    public int sampled() {
+        BitmapHunter.calculateInSampleSize(sampled, WIDTH, HEIGHT, options);
+        return options.inSampleSize;
+    }
+
+    @Benchmark
+    public int exact() {
+        BitmapHunter.calculateInSampleSize(exact, WIDTH, HEIGHT, options);
+        return options.inSampleSize + options.inTargetDensity;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+/**
+ * Building the memory cache key, which happens for every request on the main thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateKeyBenchmark {
+    private Request plain;
+    private Request rotated;
+    private Request resized;
+    private Request transformed;
+
+    @Setup
+    public void setUp() {
+        final Uri uri = Uri.parse("http://example.com/images/photo.jpg");
+        plain = new Request.Builder(uri).build();
+        rotated = new Request.Builder(uri).rotate(90, 16, 16).build();
+        resized = new Request.Builder(uri).resize(320, 240).centerCrop().build();
+        transformed = new Request.Builder(uri).resize(320, 240).transform(new NamedTransformation("blur"))
+                .transform(new NamedTransformation("round")).build();
+    }
+
+    @Benchmark
+    public RequestKey plain() {
+        return Utils.createKey(plain);
+    }
+
+    @Benchmark
+    public RequestKey rotation() {
+        return Utils.createKey(rotated);
+    }
+
+    @Benchmark
+    public RequestKey resize() {
+        return Utils.createKey(resized);
+    }
+
+    @Benchmark
+    public RequestKey transformations() {
+        return Utils.createKey(transformed);
+    }
+
+    private static final class NamedTransformation implements Transformation {
+        private final String key;
+
+        NamedTransformation(final String key) {
+            this.key = key;
+        }
+
+        @Override
+        public Bitmap transform(final Bitmap source) {
+            return source;
+        }
+
+        @Override
+        public String key() {
+            return key;
+        }
+    }
+}
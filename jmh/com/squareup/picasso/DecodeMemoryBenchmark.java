@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+/**
+ * Memory spent decoding a 2048x1536 image to 300x300, with and without an exact decode. Shadow
+ * bitmaps keep their pixels on the heap, so the allocation rate per operation reported by the GC
+ * profiler is the pixel memory of each decode and transform.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeMemoryBenchmark {
+    @Param({"true", "false"})
+    public boolean exactDecode;
+
+    @Param({"centerInside", "centerCrop"})
+    public String scaleType;
+
+    private final Uri uri = Uri.parse("http://example.com/photo.png");
+    private Picasso picasso;
+
+    @Setup
+    public void setUp() {
+        final FakeDownloader downloader = new FakeDownloader();
+        downloader.put(uri, TestImages.encoded(2048, 1536));
+        picasso = new Picasso.Builder(new FakeContext()).downloader(downloader).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        picasso.shutdown();
+    }
+
+    @Benchmark
+    public Bitmap decode() throws Exception {
+        final RequestCreator creator = picasso.load(uri).skipMemoryCache().resize(300, 300);
+        if ("centerCrop".equals(scaleType)) {
+            creator.centerCrop();
+        } else {
+            creator.centerInside();
+        }
+        if (exactDecode) {
+            creator.exactDecode();
+        }
+        return creator.submit().get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+/**
+ * Requests submitted, dispatched, downloaded, decoded and completed, measured from submitting a
+ * batch until every future has its bitmap. The downloader serves small images from memory, so
+ * this measures Picasso's own overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatcherBenchmark {
+    private static final int BATCH = 64;
+
+    private Picasso picasso;
+    private Uri[] uris;
+
+    @Setup
+    public void setUp() {
+        final FakeDownloader downloader = new FakeDownloader();
+        final byte[] payload = TestImages.encoded(64, 64);
+        uris = new Uri[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            uris[i] = Uri.parse("http://example.com/" + i + ".png");
+            downloader.put(uris[i], payload);
+        }
+        picasso = new Picasso.Builder(new FakeContext()).downloader(downloader).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        picasso.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Bitmap> submitToComplete() throws Exception {
+        final List<BitmapFuture> futures = new ArrayList<BitmapFuture>(BATCH);
+        for (final Uri uri : uris) {
+            futures.add(picasso.load(uri).skipMemoryCache().submit());
+        }
+        return BitmapFuture.getAll(futures, 10, TimeUnit.SECONDS);
+    }
+}
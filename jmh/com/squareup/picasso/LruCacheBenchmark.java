@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+/**
+ * Memory cache lookups and insertions from several threads at once, as executor threads and the
+ * main thread hit the cache together. Nine in ten operations are lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LruCacheBenchmark {
+    private static final int KEY_COUNT = 1024;
+    private static final int BITMAP_SIZE = 32;
+
+    @Param({"lru", "segmented"})
+    public String cache;
+
+    private Cache instance;
+    private RequestKey[] keys;
+    private Bitmap[] bitmaps;
+
+    @Setup
+    public void setUp() {
+        // Room for half of the keys, so that insertions keep evicting.
+        final int maxSize = KEY_COUNT / 2 * BITMAP_SIZE * BITMAP_SIZE * 4;
+        instance = "lru".equals(cache) ? new LruCache(maxSize) : new SegmentedLruCache(maxSize);
+        keys = new RequestKey[KEY_COUNT];
+        bitmaps = new Bitmap[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = Utils.createKey(new Request.Builder(Uri.parse("http://example.com/" + i + ".png")).build());
+            bitmaps[i] = Bitmap.createBitmap(BITMAP_SIZE, BITMAP_SIZE, Bitmap.Config.ARGB_8888);
+            instance.set(keys[i], bitmaps[i]);
+        }
+    }
+
+    @Benchmark
+    public Bitmap getOrSet() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int i = random.nextInt(KEY_COUNT);
+        if (random.nextInt(10) == 0) {
+            instance.set(keys[i], bitmaps[i]);
+            return null;
+        }
+        return instance.get(keys[i]);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading a header, rewinding and reading the whole stream, as the hunters do before decoding.
+ * Unmarkable sources get wrapped in a buffer by {@link MarkableInputStream}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkableInputStreamBenchmark {
+    private static final int HEADER_SIZE = 64;
+
+    @Param({"65536", "1048576"})
+    public int payloadSize;
+
+    @Param({"true", "false"})
+    public boolean markable;
+
+    private byte[] payload;
+    private final byte[] buffer = new byte[8192];
+
+    @Setup
+    public void setUp() {
+        payload = new byte[payloadSize];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+    }
+
+    @Benchmark
+    public long savePositionAndReset() throws IOException {
+        final InputStream source = markable ? new ByteArrayInputStream(payload) : unmarkable(payload);
+        final MarkableInputStream stream = new MarkableInputStream(source);
+        final long mark = stream.savePosition(ImageHeaderParser.MAX_HEADER_SIZE);
+        long total = stream.read(buffer, 0, HEADER_SIZE);
+        stream.reset(mark);
+        int n;
+        while ((n = stream.read(buffer)) != -1) {
+            total += n;
+        }
+        return total;
+    }
+
+    private static InputStream unmarkable(final byte[] payload) {
+        return new FilterInputStream(new ByteArrayInputStream(payload)) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+}
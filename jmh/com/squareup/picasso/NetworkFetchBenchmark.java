@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+/**
+ * Allocations of the network hunter reading multi-megabyte WebP bodies, with and without a known
+ * content length. The images are small, so the 256 KB of decoded pixels per operation leave the
+ * body buffers dominating the allocation rate. Bodies larger than the 4 MB buffer pool are never
+ * pooled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkFetchBenchmark {
+    @Param({"1048576", "3145728", "8388608"})
+    public int payloadSize;
+
+    @Param({"true", "false"})
+    public boolean contentLength;
+
+    private final Uri uri = Uri.parse("http://example.com/large.webp");
+    private Picasso picasso;
+
+    @Setup
+    public void setUp() {
+        final FakeDownloader downloader = new FakeDownloader();
+        downloader.put(uri, TestImages.webp(256, 256, payloadSize));
+        downloader.reportContentLength(contentLength);
+        picasso = new Picasso.Builder(new FakeContext()).downloader(downloader).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        picasso.shutdown();
+    }
+
+    @Benchmark
+    public Bitmap fetchAndDecode() throws Exception {
+        return picasso.load(uri).skipMemoryCache().submit().get(10, TimeUnit.SECONDS);
+    }
+}
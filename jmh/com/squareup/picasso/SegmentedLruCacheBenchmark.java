@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+/**
+ * Main thread lookups racing executor threads which keep inserting into a full cache, so that every
+ * insertion evicts into a bitmap pool. One segment behaves like a single lock.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SegmentedLruCacheBenchmark {
+    private static final int KEY_COUNT = 1024;
+    private static final int BITMAP_SIZE = 32;
+    private static final int BITMAP_BYTES = BITMAP_SIZE * BITMAP_SIZE * 4;
+
+    @Param({"1", "4", "16"})
+    public int segmentCount;
+
+    private SegmentedLruCache cache;
+    private RequestKey[] keys;
+    private Bitmap[] bitmaps;
+
+    @Setup
+    public void setUp() {
+        cache = new SegmentedLruCache(KEY_COUNT / 2 * BITMAP_BYTES, segmentCount);
+        cache.evictionPool = new LruBitmapPool(KEY_COUNT / 4 * BITMAP_BYTES);
+        keys = new RequestKey[KEY_COUNT];
+        bitmaps = new Bitmap[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = Utils.createKey(new Request.Builder(Uri.parse("http://example.com/" + i + ".png")).build());
+            bitmaps[i] = Bitmap.createBitmap(BITMAP_SIZE, BITMAP_SIZE, Bitmap.Config.ARGB_8888);
+            cache.set(keys[i], bitmaps[i]);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Bitmap get() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)]);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public void set() {
+        final int i = ThreadLocalRandom.current().nextInt(KEY_COUNT);
+        cache.set(keys[i], bitmaps[i]);
+    }
+}
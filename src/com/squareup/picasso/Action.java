@@ -38,12 +38,15 @@ abstract class Action<T> {
     final boolean noFade;
     final int errorResId;
     final Drawable errorDrawable;
-    final String key;
+    final RequestKey key;
+    final Object tag;
 
+    Picasso.Priority priority; // Only lowered, by the dispatcher, once the target is out of view.
     boolean cancelled;
 
     Action(final Picasso picasso, final T target, final Request data, final boolean skipCache, final boolean noFade,
-           final int errorResId, final Drawable errorDrawable, final String key) {
+           final int errorResId, final Drawable errorDrawable, final RequestKey key, final Picasso.Priority priority,
+           final Object tag) {
         this.picasso = picasso;
         this.data = data;
         this.target = new RequestWeakReference<T>(this, target, picasso.referenceQueue);
@@ -52,12 +55,18 @@ abstract class Action<T> {
         this.errorResId = errorResId;
         this.errorDrawable = errorDrawable;
         this.key = key;
+        this.priority = priority;
+        this.tag = tag != null ? tag : this;
     }
 
     abstract void complete(Bitmap result, Picasso.LoadedFrom from);
 
     abstract void error();
 
+    /**
+     * Called on the main thread when the request is cancelled, including by its tag and when the
+     * dispatcher drops it. Neither {@link #complete} nor {@link #error} is called afterwards.
+     */
     void cancel() {
         cancelled = true;
     }
@@ -70,10 +79,18 @@ abstract class Action<T> {
         return target.get();
     }
 
-    String getKey() {
+    RequestKey getKey() {
         return key;
     }
 
+    Picasso.Priority getPriority() {
+        return priority;
+    }
+
+    Object getTag() {
+        return tag;
+    }
+
     boolean isCancelled() {
         return cancelled;
     }
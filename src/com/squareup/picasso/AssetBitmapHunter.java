@@ -9,7 +9,6 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import static android.content.ContentResolver.SCHEME_FILE;
-import static com.squareup.picasso.Picasso.LoadedFrom.DISK;
 
 class AssetBitmapHunter extends BitmapHunter {
     protected static final String ANDROID_ASSET = "android_asset";
@@ -30,29 +29,30 @@ class AssetBitmapHunter extends BitmapHunter {
         return decodeAsset(filePath);
     }
 
-    @Override
-    Picasso.LoadedFrom getLoadedFrom() {
-        return DISK;
-    }
-
     Bitmap decodeAsset(final String filePath) throws IOException {
         final BitmapFactory.Options options = createBitmapOptions(data);
-        if (data.hasSize()) {
-            options.inJustDecodeBounds = true;
-            InputStream is = null;
-            try {
-                is = assetManager.open(filePath);
-                BitmapFactory.decodeStream(is, null, options);
-            } finally {
-                Utils.closeQuietly(is);
-            }
-            calculateInSampleSize(data.targetWidth, data.targetHeight, options);
-        }
-        final InputStream is = assetManager.open(filePath);
+        final MarkableInputStream stream = new MarkableInputStream(assetManager.open(filePath));
         try {
-            return BitmapFactory.decodeStream(is, null, options);
+            if (data.hasSize()) {
+                final ImageHeaderParser.Header header = readHeader(stream);
+                if (header != null) {
+                    calculateInSampleSize(data, header, options);
+                } else {
+                    options.inJustDecodeBounds = true;
+                    InputStream is = null;
+                    try {
+                        is = assetManager.open(filePath);
+                        BitmapFactory.decodeStream(is, null, options);
+                    } finally {
+                        Utils.closeQuietly(is);
+                    }
+                    calculateInSampleSize(data, options);
+                    reuseBitmap(options);
+                }
+            }
+            return BitmapFactory.decodeStream(stream, null, options);
         } finally {
-            Utils.closeQuietly(is);
+            Utils.closeQuietly(stream);
         }
     }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pending result of {@link RequestCreator#submit()}.
+ * <p/>
+ * The future completes as soon as the hunter for its request finishes, without a trip through the
+ * main thread. {@link #cancel(boolean) Cancelling} it detaches its request from the hunter, which
+ * is cancelled too once no other request needs it.
+ */
+public final class BitmapFuture implements Future<Bitmap> {
+    /**
+     * Notified when a future completes, fails or is cancelled. Called on a Picasso background thread
+     * or on the thread which completed the future, and must not block.
+     */
+    public interface Listener {
+        void onComplete(BitmapFuture future);
+    }
+
+    private final GetAction action;
+    private final List<Listener> listeners = new ArrayList<Listener>(2);
+
+    BitmapFuture(final GetAction action) {
+        this.action = action;
+        action.onFinish = new Runnable() {
+            @Override
+            public void run() {
+                notifyListeners();
+            }
+        };
+    }
+
+    /**
+     * Call {@code listener} once this future is done, right away if it already is.
+     */
+    public void addListener(final Listener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null.");
+        }
+        synchronized (listeners) {
+            if (!action.isDone()) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        listener.onComplete(this);
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        return action.abandonIfPending();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return action.isAbandoned();
+    }
+
+    @Override
+    public boolean isDone() {
+        return action.isDone();
+    }
+
+    /**
+     * Waits for the image.
+     *
+     * @return The bitmap, or {@code null} if it could not be decoded.
+     * @throws ExecutionException if loading the image failed with an exception.
+     */
+    @Override
+    public Bitmap get() throws InterruptedException, ExecutionException {
+        action.latch.await();
+        return outcome();
+    }
+
+    /**
+     * Waits at most {@code timeout} for the image. The request keeps running after a timeout.
+     *
+     * @see #get()
+     */
+    @Override
+    public Bitmap get(final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!action.latch.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return outcome();
+    }
+
+    private Bitmap outcome() throws ExecutionException {
+        if (action.isAbandoned()) {
+            throw new CancellationException();
+        }
+        final Exception exception = action.getException();
+        if (exception != null) {
+            throw new ExecutionException(exception);
+        }
+        return action.getResult();
+    }
+
+    private void notifyListeners() {
+        final List<Listener> pending;
+        synchronized (listeners) {
+            pending = new ArrayList<Listener>(listeners);
+            listeners.clear();
+        }
+        for (final Listener listener : pending) {
+            listener.onComplete(this);
+        }
+    }
+
+    /**
+     * Call {@code listener} once every one of {@code futures} is done.
+     */
+    public static void whenAll(final List<BitmapFuture> futures, final Runnable listener) {
+        if (futures == null || listener == null) {
+            throw new IllegalArgumentException("Futures and listener must not be null.");
+        }
+        if (futures.isEmpty()) {
+            listener.run();
+            return;
+        }
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+        final Listener countdown = new Listener() {
+            @Override
+            public void onComplete(final BitmapFuture future) {
+                if (remaining.decrementAndGet() == 0) {
+                    listener.run();
+                }
+            }
+        };
+        for (final BitmapFuture future : futures) {
+            future.addListener(countdown);
+        }
+    }
+
+    /**
+     * Waits at most {@code timeout} in total for every one of {@code futures}. The images are
+     * returned in the same order. Those which failed or were cancelled are {@code null}.
+     *
+     * @throws TimeoutException if some image was still loading after {@code timeout}. Nothing is
+     * cancelled.
+     */
+    public static List<Bitmap> getAll(final List<BitmapFuture> futures, final long timeout, final TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        final List<Bitmap> bitmaps = new ArrayList<Bitmap>(futures.size());
+        for (final BitmapFuture future : futures) {
+            final long remaining = deadline - System.nanoTime();
+            if (!future.action.latch.await(remaining, TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException();
+            }
+            if (future.isCancelled() || future.action.getException() != null) {
+                bitmaps.add(null);
+            } else {
+                bitmaps.add(future.action.getResult());
+            }
+        }
+        return bitmaps;
+    }
+
+    /**
+     * Cancel every one of {@code futures} which is still pending.
+     */
+    public static void cancelAll(final List<BitmapFuture> futures) {
+        for (final BitmapFuture future : futures) {
+            future.cancel(false);
+        }
+    }
+}
@@ -19,11 +19,14 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Matrix;
+import android.graphics.Rect;
 import android.net.NetworkInfo;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.provider.MediaStore;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
@@ -31,18 +34,20 @@ import java.util.List;
 import java.util.concurrent.Future;
 
 import static android.content.ContentResolver.*;
+import static android.os.Build.VERSION.SDK_INT;
+import static android.os.Build.VERSION_CODES.KITKAT;
 import static android.provider.ContactsContract.Contacts;
 import static com.squareup.picasso.AssetBitmapHunter.ANDROID_ASSET;
+import static com.squareup.picasso.Picasso.LoadedFrom.DISK;
 import static com.squareup.picasso.Picasso.LoadedFrom.MEMORY;
+import static com.squareup.picasso.Picasso.LoadedFrom.RESULT_DISK;
 
 abstract class BitmapHunter implements Runnable {
-
     /**
-     * Global lock for bitmap decoding to ensure that we are only are decoding one at a time. Since
-     * this will only ever happen in background threads we help avoid excessive memory thrashing as
-     * well as potential OOMs. Shamelessly stolen from Volley.
+     * Sources below this size are decoded whole even for a center crop. Region decoding has its own
+     * overhead, which only pays off on large camera photos.
      */
-    private static final Object DECODE_LOCK = new Object();
+    static final long MIN_REGION_DECODE_PIXELS = 4 * 1024 * 1024;
 
     private static final ThreadLocal<StringBuilder> NAME_BUILDER = new ThreadLocal<StringBuilder>() {
         @Override
@@ -55,22 +60,45 @@ abstract class BitmapHunter implements Runnable {
     final Dispatcher dispatcher;
     final Cache cache;
     final Stats stats;
-    final String key;
+    final BitmapPool bitmapPool;
+    final MemoryBudget transformBudget;
+    final ResultDiskCache resultDiskCache;
+    final VariantIndex variantIndex;
+    final RequestKey key;
     final Request data;
     final List<Action> actions;
     final boolean skipMemoryCache;
 
     Bitmap result;
     Future<?> future;
+    Picasso.Priority priority;
     Picasso.LoadedFrom loadedFrom;
     Exception exception;
     int exifRotation; // Determined during decoding of original resource.
+    boolean reusedBitmap; // Set when a pooled bitmap was handed to the decoder.
+    long submitTime; // Uptime when last handed to the executor.
+    long completeTime; // Uptime when the result was handed back to the dispatcher.
+    long downloadTime; // Time spent waiting on the network during the last decode.
+    long networkBytes; // Bytes received from the network during the last decode.
+    long networkTime; // Time from the request until the last network byte was read.
+    long timeToFirstByte; // Time from the request until the response arrived.
+    boolean scaledCopy; // Set when the result is the whole source scaled uniformly.
+    int retryAttempt; // Retries scheduled so far, for the backoff delay.
+    boolean localCacheOnly; // Set for the single attempt made while the device is offline.
+    boolean fetched; // Set while the source is buffered in memory, waiting to be decoded.
+    boolean warmed; // Set when a warmup request filled the disk cache.
+    BitmapHunter leader; // The hunter for the same source this one waits on before it is submitted.
+    List<BitmapHunter> followers; // Hunters waiting on this one. Only touched by the dispatcher.
 
     BitmapHunter(final Picasso picasso, final Dispatcher dispatcher, final Cache cache, final Stats stats, final Action action) {
         this.picasso = picasso;
         this.dispatcher = dispatcher;
         this.cache = cache;
         this.stats = stats;
+        this.bitmapPool = picasso.bitmapPool;
+        this.transformBudget = picasso.transformBudget;
+        this.resultDiskCache = picasso.resultDiskCache;
+        this.variantIndex = picasso.variantIndex;
         this.key = action.getKey();
         this.data = action.getData();
         this.skipMemoryCache = action.skipCache;
@@ -86,12 +114,35 @@ abstract class BitmapHunter implements Runnable {
     public void run() {
         try {
             updateThreadName(data);
+            stats.dispatchHunterStarted(SystemClock.uptimeMillis() - submitTime);
+
+            if (key.warmup) {
+                warmed = warm();
+            } else if (fetched) {
+                try {
+                    result = decodeAndTransform();
+                } finally {
+                    fetched = false;
+                }
+            } else {
+                downloadTime = 0;
+                networkBytes = 0;
+                result = findCached();
+                if (result == null) {
+                    if (fetch()) {
+                        // Free this thread for the next fetch. A local thread decodes the bytes.
+                        fetched = true;
+                        dispatcher.dispatchFetched(this);
+                        return;
+                    }
+                    result = decodeAndTransform();
+                }
+            }
 
-            result = hunt();
-
-            if (result == null) {
+            if (result == null && !warmed) {
                 dispatcher.dispatchFailed(this);
             } else {
+                completeTime = SystemClock.uptimeMillis();
                 dispatcher.dispatchComplete(this);
             }
         } catch (final Downloader.ResponseException e) {
@@ -115,7 +166,29 @@ abstract class BitmapHunter implements Runnable {
 
     abstract Bitmap decode(Request data) throws IOException;
 
-    Bitmap hunt() throws IOException {
+    /**
+     * Move the source into memory so that it can be decoded on another thread. Hunters which read
+     * the source while they decode return {@code false}, as do those with nothing to decode.
+     */
+    boolean fetch() throws IOException {
+        return false;
+    }
+
+    /**
+     * Load the source into the disk cache without decoding it. Returns whether it is there now.
+     * Local sources need no cache and are always ready.
+     */
+    boolean warm() throws IOException {
+        return true;
+    }
+
+    /**
+     * Drop the source buffered by {@link #fetch()} when it will never be decoded.
+     */
+    void releaseFetched() {
+    }
+
+    private Bitmap findCached() throws IOException {
         Bitmap bitmap;
 
         if (!skipMemoryCache) {
@@ -123,40 +196,216 @@ abstract class BitmapHunter implements Runnable {
             if (bitmap != null) {
                 stats.dispatchCacheHit();
                 loadedFrom = MEMORY;
+                scaledCopy = isCachedScaledCopy(bitmap);
+                return bitmap;
+            }
+
+            final Bitmap variant = variantIndex.find(data, key, cache);
+            if (variant != null) {
+                bitmap = deriveFromVariant(variant);
+                if (bitmap != null) {
+                    stats.dispatchCacheVariantHit();
+                    loadedFrom = MEMORY;
+                    return bitmap;
+                }
+            }
+        }
+
+        if (resultDiskCache != null && data.needsTransformation()) {
+            bitmap = resultDiskCache.get(key, createBitmapOptions(data));
+            if (bitmap != null) {
+                loadedFrom = RESULT_DISK;
+                scaledCopy = isCachedScaledCopy(bitmap);
                 return bitmap;
             }
         }
+        return null;
+    }
+
+    /**
+     * Whether {@code cached}, found in a cache, is a uniformly scaled copy of its source so that
+     * followers can be derived from it. The source size is unknown here, so only requests which keep
+     * the aspect ratio by construction qualify.
+     */
+    private boolean isCachedScaledCopy(final Bitmap cached) {
+        if (data.hasSize() && !data.centerInside) {
+            return false;
+        }
+        return isScaledCopy(data, cached.getWidth(), cached.getHeight(), cached);
+    }
+
+    private Bitmap decodeAndTransform() throws IOException {
+        Bitmap bitmap;
+
+        final long decodeStart = SystemClock.uptimeMillis();
+        final long previousDownloadTime = downloadTime;
+        try {
+            bitmap = decode(data);
+        } catch (final IllegalArgumentException e) {
+            if (!reusedBitmap) {
+                throw e;
+            }
+            // The decoder rejected the pooled bitmap. Decode once more into a fresh allocation.
+            bitmap = decode(data);
+        }
+        final long decodeTime = SystemClock.uptimeMillis() - decodeStart - (downloadTime - previousDownloadTime);
 
-        bitmap = decode(data);
+        if (loadedFrom == null) {
+            // Only the network hunter distinguishes its source. Everything else is read locally.
+            loadedFrom = DISK;
+        }
 
         if (bitmap != null) {
-            stats.dispatchBitmapDecoded(bitmap);
+            if (data.exactDecode) {
+                // Density scaling leaves the target density on the bitmap, which drawables would
+                // then scale again when drawing it.
+                bitmap.setDensity(picasso.context.getResources().getDisplayMetrics().densityDpi);
+            }
+            stats.dispatchBitmapDecoded(bitmap, decodeTime);
+            final boolean swapAxes = exifRotation == 90 || exifRotation == 270;
+            final int sourceWidth = swapAxes ? bitmap.getHeight() : bitmap.getWidth();
+            final int sourceHeight = swapAxes ? bitmap.getWidth() : bitmap.getHeight();
             if (data.needsTransformation() || exifRotation != 0) {
-                synchronized (DECODE_LOCK) {
-                    if (data.needsMatrixTransform() || exifRotation != 0) {
-                        bitmap = transformResult(data, bitmap, exifRotation);
-                    }
-                    if (data.hasCustomTransformations()) {
-                        bitmap = applyCustomTransformations(data.transformations, bitmap);
+                // Transforms hold their input and output at the same time. Run them in parallel
+                // only as long as the pixels in flight across all hunters fit the budget.
+                final long bytes = estimateTransformBytes(data, bitmap);
+                final long waitTime = acquireTransformBudget(bytes);
+                final long transformStart = SystemClock.uptimeMillis();
+                try {
+                    bitmap = applyTransformations(data, bitmap, exifRotation, bitmapPool);
+                } finally {
+                    transformBudget.release(bytes);
+                }
+                if (bitmap != null) {
+                    final long transformTime = SystemClock.uptimeMillis() - transformStart;
+                    stats.dispatchBitmapTransformed(bitmap, waitTime, transformTime);
+                    if (resultDiskCache != null && data.needsTransformation()) {
+                        // Only transformed results are worth storing. Untouched images are no
+                        // cheaper to decode from our copy than from their source.
+                        resultDiskCache.set(key, bitmap);
                     }
                 }
-                stats.dispatchBitmapTransformed(bitmap);
             }
+            scaledCopy = bitmap != null && isScaledCopy(data, sourceWidth, sourceHeight, bitmap);
         }
 
         return bitmap;
     }
 
+    /**
+     * Produce the result for this request from {@code variant}, a larger cached copy of the same
+     * source. The variant is shared with the cache and is never recycled or handed to the pool.
+     */
+    private Bitmap deriveFromVariant(final Bitmap variant) throws IOException {
+        final long bytes = estimateTransformBytes(data, variant);
+        final long waitTime = acquireTransformBudget(bytes);
+        final long transformStart = SystemClock.uptimeMillis();
+        Bitmap bitmap;
+        try {
+            // The variant already has the EXIF rotation applied.
+            bitmap = transformResult(data, variant, 0, BitmapPool.NONE, false);
+            if (bitmap == variant) {
+                // Never let two cache entries or a custom transformation share the cached bitmap.
+                final Bitmap.Config config =
+                        variant.getConfig() != null ? variant.getConfig() : Bitmap.Config.ARGB_8888;
+                bitmap = variant.copy(config, variant.isMutable());
+                if (bitmap == null) {
+                    return null;
+                }
+            }
+            if (data.hasCustomTransformations()) {
+                bitmap = applyCustomTransformations(data.transformations, 0, bitmap, bitmapPool);
+            }
+        } finally {
+            transformBudget.release(bytes);
+        }
+        if (bitmap != null) {
+            final long transformTime = SystemClock.uptimeMillis() - transformStart;
+            stats.dispatchBitmapTransformed(bitmap, waitTime, transformTime);
+            scaledCopy = isScaledCopy(data, variant.getWidth(), variant.getHeight(), bitmap);
+        }
+        return bitmap;
+    }
+
+    private long acquireTransformBudget(final long bytes) throws InterruptedIOException {
+        try {
+            return transformBudget.acquire(bytes);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for transform budget.");
+        }
+    }
+
+    /**
+     * Whether {@code result} is the whole of a {@code sourceWidth} by {@code sourceHeight} source
+     * scaled by the same factor on both axes, within a pixel of rounding.
+     */
+    static boolean isScaledCopy(final Request data, final int sourceWidth, final int sourceHeight,
+                                final Bitmap result) {
+        if (data.rotationDegrees != 0 || data.centerCrop || data.hasCustomTransformations()
+                || sourceWidth <= 0 || sourceHeight <= 0) {
+            return false;
+        }
+        final long expectedHeight = Math.round((double) result.getWidth() * sourceHeight / sourceWidth);
+        return Math.abs(expectedHeight - result.getHeight()) <= 1;
+    }
+
     void attach(final Action action) {
         actions.add(action);
+        final Picasso.Priority actionPriority = action.getPriority();
+        if (priority == null || actionPriority.ordinal() > priority.ordinal()) {
+            priority = actionPriority;
+        }
     }
 
     void detach(final Action action) {
         actions.remove(action);
     }
 
+    /**
+     * Lower {@code action} to {@link Picasso.Priority#LOW} because nobody is looking at its target.
+     * Returns whether the priority of this hunter dropped as a result.
+     */
+    boolean deprioritize(final Action action) {
+        if (action.priority == Picasso.Priority.LOW || !actions.contains(action)) {
+            return false;
+        }
+        action.priority = Picasso.Priority.LOW;
+        final Picasso.Priority previous = priority;
+        priority = Picasso.Priority.LOW;
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0, n = actions.size(); i < n; i++) {
+            final Picasso.Priority actionPriority = actions.get(i).getPriority();
+            if (actionPriority.ordinal() > priority.ordinal()) {
+                priority = actionPriority;
+            }
+        }
+        return priority != previous;
+    }
+
     boolean cancel() {
-        return actions.isEmpty() && future != null && future.cancel(false);
+        if (!actions.isEmpty()) {
+            return false;
+        }
+        if (leader != null) {
+            // Never submitted. Just stop waiting.
+            leader.followers.remove(this);
+            leader = null;
+            return true;
+        }
+        if (future != null && future.cancel(false)) {
+            releaseFetched();
+            return true;
+        }
+        return false;
+    }
+
+    void follow(final BitmapHunter leader) {
+        if (leader.followers == null) {
+            leader.followers = new ArrayList<BitmapHunter>(4);
+        }
+        leader.followers.add(this);
+        this.leader = leader;
     }
 
     boolean isCancelled() {
@@ -171,11 +420,30 @@ abstract class BitmapHunter implements Runnable {
         return false;
     }
 
+    /**
+     * Whether this hunter loads from the network, so that it should wait for connectivity rather
+     * than spend its retries while the device is offline.
+     */
+    boolean needsNetwork() {
+        return false;
+    }
+
+    /**
+     * The highest priority among the attached actions.
+     */
+    Picasso.Priority getPriority() {
+        return priority;
+    }
+
+    boolean isScaledCopy() {
+        return scaledCopy;
+    }
+
     Bitmap getResult() {
         return result;
     }
 
-    String getKey() {
+    RequestKey getKey() {
         return key;
     }
 
@@ -235,14 +503,139 @@ abstract class BitmapHunter implements Runnable {
         }
     }
 
-    static BitmapFactory.Options createBitmapOptions(final Request data) {
+    BitmapFactory.Options createBitmapOptions(final Request data) {
         final BitmapFactory.Options options = new BitmapFactory.Options();
         if (data.config != null) {
             options.inPreferredConfig = data.config;
         }
+        if (canReuseBitmaps()) {
+            // Only mutable bitmaps can be pooled and decoded into again later.
+            options.inMutable = true;
+        }
         return options;
     }
 
+    /**
+     * Hand the decoder a pooled bitmap matching the sampled bounds in {@code options}, if any. Must
+     * be called after the bounds have been decoded and the sample size calculated.
+     */
+    void reuseBitmap(final BitmapFactory.Options options) {
+        if (!canReuseBitmaps() || reusedBitmap || options.outWidth <= 0 || options.outHeight <= 0) {
+            return;
+        }
+        final int sampleSize = options.inSampleSize > 1 ? options.inSampleSize : 1;
+        int width = (options.outWidth + sampleSize - 1) / sampleSize;
+        int height = (options.outHeight + sampleSize - 1) / sampleSize;
+        if (options.inScaled && options.inDensity > 0 && options.inTargetDensity > 0
+                && options.inDensity != options.inTargetDensity) {
+            // The decoder scales the sampled pixels by the density ratio, rounding to the nearest.
+            final float scale = options.inTargetDensity / (float) options.inDensity;
+            width = (int) (width * scale + 0.5f);
+            height = (int) (height * scale + 0.5f);
+        }
+        final Bitmap.Config config =
+                options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+        final Bitmap pooled = bitmapPool.get(width, height, config);
+        if (pooled != null) {
+            options.inBitmap = pooled;
+            reusedBitmap = true;
+            stats.dispatchBitmapPoolHit();
+        } else {
+            stats.dispatchBitmapPoolMiss();
+        }
+    }
+
+    /**
+     * Size {@code options} from a sniffed header instead of decoding the bounds from a second
+     * stream, then look for a pooled bitmap to decode into.
+     */
+    void calculateInSampleSize(final Request data, final ImageHeaderParser.Header header,
+                               final BitmapFactory.Options options) {
+        options.outWidth = header.width;
+        options.outHeight = header.height;
+        calculateInSampleSize(data, options);
+        reuseBitmap(options);
+    }
+
+    /**
+     * Parse the header at the start of {@code stream} and rewind it. Returns {@code null} if the
+     * format is not recognized.
+     */
+    static ImageHeaderParser.Header readHeader(final MarkableInputStream stream) throws IOException {
+        final long mark = stream.savePosition(ImageHeaderParser.MAX_HEADER_SIZE);
+        final ImageHeaderParser.Header header = ImageHeaderParser.parse(stream);
+        stream.reset(mark);
+        return header;
+    }
+
+    private boolean canReuseBitmaps() {
+        // Decoding into a bitmap of a different size or format requires KitKat.
+        return bitmapPool != BitmapPool.NONE && SDK_INT >= KITKAT;
+    }
+
+    static void calculateInSampleSize(final Request data, final BitmapFactory.Options options) {
+        calculateInSampleSize(data, options.outWidth, options.outHeight, options);
+    }
+
+    /**
+     * Size {@code options} for decoding a {@code width} by {@code height} source, exactly to the
+     * target size if {@code data} asks for it.
+     */
+    static void calculateInSampleSize(final Request data, final int width, final int height,
+                                      final BitmapFactory.Options options) {
+        if (data.exactDecode) {
+            calculateExactScale(data, width, height, options);
+        } else {
+            calculateInSampleSize(data.targetWidth, data.targetHeight, width, height, options);
+        }
+    }
+
+    /**
+     * Sample by the largest power of two which keeps the image at least as large as the scale
+     * {@link #transformResult} would apply, then let the decoder's density scaling cover the rest so
+     * that the decoded bitmap already has the final size. Never scales up.
+     * <p/>
+     * Density scaling is only applied while decoding since KitKat. Before that, {@code decodeStream}
+     * scaled a finished decode into a second bitmap, and {@code decodeByteArray} did not scale at
+     * all. Older releases therefore only sample, and {@link #transformResult} scales the rest.
+     */
+    static void calculateExactScale(final Request data, final int width, final int height,
+                                    final BitmapFactory.Options options) {
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = 1;
+        options.inDensity = 0;
+        options.inTargetDensity = 0;
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        final float widthRatio = data.targetWidth / (float) width;
+        final float heightRatio = data.targetHeight / (float) height;
+        // A center inside fits the smaller ratio. A center crop, or a plain resize which keeps the
+        // larger dimension sharp, needs the larger one.
+        final boolean byWidth = data.centerInside ? widthRatio <= heightRatio : widthRatio >= heightRatio;
+        final float scale = byWidth ? widthRatio : heightRatio;
+        if (scale >= 1) {
+            return;
+        }
+        int sampleSize = 1;
+        while (sampleSize * 2 * scale <= 1) {
+            sampleSize *= 2;
+        }
+        options.inSampleSize = sampleSize;
+        if (SDK_INT < KITKAT) {
+            return;
+        }
+
+        // Decoders round the sampled size up.
+        final int sampled = ((byWidth ? width : height) + sampleSize - 1) / sampleSize;
+        final int target = byWidth ? data.targetWidth : data.targetHeight;
+        if (target < sampled) {
+            options.inScaled = true;
+            options.inDensity = sampled;
+            options.inTargetDensity = target;
+        }
+    }
+
     static void calculateInSampleSize(final int reqWidth, final int reqHeight, final BitmapFactory.Options options) {
         calculateInSampleSize(reqWidth, reqHeight, options.outWidth, options.outHeight, options);
     }
@@ -260,8 +653,66 @@ abstract class BitmapHunter implements Runnable {
         options.inJustDecodeBounds = false;
     }
 
-    static Bitmap applyCustomTransformations(final List<Transformation> transformations, Bitmap result) {
-        for (int i = 0, count = transformations.size(); i < count; i++) {
+    /**
+     * Estimate the bytes held while transforming {@code decoded}: the decoded input plus an output
+     * of the requested target size, or of the input size when no resize was requested.
+     */
+    static long estimateTransformBytes(final Request data, final Bitmap decoded) {
+        final long inputBytes = Utils.getBitmapBytes(decoded);
+        if (!data.hasSize()) {
+            return inputBytes * 2;
+        }
+        final int pixels = decoded.getWidth() * decoded.getHeight();
+        final long bytesPerPixel = pixels > 0 ? Math.max(1, inputBytes / pixels) : 4;
+        return inputBytes + (long) data.targetWidth * data.targetHeight * bytesPerPixel;
+    }
+
+    /**
+     * Apply the built-in transformations of {@code data}, the EXIF rotation and then the custom
+     * transformations to {@code result}. When the custom transformations start with ones which can
+     * be fused, the built-in matrix is drawn together with them in a single pass.
+     */
+    static Bitmap applyTransformations(final Request data, Bitmap result, final int exifRotation,
+                                       final BitmapPool bitmapPool) {
+        final List<Transformation> transformations = data.transformations;
+        final boolean builtIn = data.needsMatrixTransform() || exifRotation != 0;
+        final int fusedEnd = transformations != null ? FusedTransformer.runEnd(transformations, 0) : 0;
+        if (fusedEnd == 0) {
+            if (builtIn) {
+                result = transformResult(data, result, exifRotation, bitmapPool);
+            }
+            if (transformations == null) {
+                return result;
+            }
+            return applyCustomTransformations(transformations, 0, result, bitmapPool);
+        }
+
+        final Matrix matrix = new Matrix();
+        final Rect draw;
+        if (builtIn) {
+            draw = prepareTransform(data, result.getWidth(), result.getHeight(), exifRotation, matrix);
+        } else {
+            draw = new Rect(0, 0, result.getWidth(), result.getHeight());
+        }
+        result = FusedTransformer.draw(result, draw, matrix, transformations, 0, fusedEnd, bitmapPool);
+        return applyCustomTransformations(transformations, fusedEnd, result, bitmapPool);
+    }
+
+    /**
+     * Apply the custom transformations from index {@code start} on. Each run of transformations
+     * which can be fused is drawn in a single pass onto one new bitmap.
+     */
+    static Bitmap applyCustomTransformations(final List<Transformation> transformations, final int start,
+                                             Bitmap result, final BitmapPool bitmapPool) {
+        for (int i = start, count = transformations.size(); i < count; i++) {
+            final int fusedEnd = FusedTransformer.runEnd(transformations, i);
+            if (fusedEnd > i) {
+                final Rect draw = new Rect(0, 0, result.getWidth(), result.getHeight());
+                result = FusedTransformer.draw(result, draw, new Matrix(), transformations, i, fusedEnd, bitmapPool);
+                i = fusedEnd - 1;
+                continue;
+            }
+
             final Transformation transformation = transformations.get(i);
             final Bitmap newResult = transformation.transform(result);
 
@@ -314,17 +765,83 @@ abstract class BitmapHunter implements Runnable {
         return result;
     }
 
-    static Bitmap transformResult(final Request data, Bitmap result, final int exifRotation) {
-        final int inWidth = result.getWidth();
-        final int inHeight = result.getHeight();
+    /**
+     * Returns the part of a {@code width} by {@code height} source which a center crop of
+     * {@code data} keeps, using the same arithmetic as {@link #transformResult}. Returns
+     * {@code null} when decoding just that part is not worth it: the source is small, the crop
+     * drops little, or a rotation pivot refers to the coordinates of the whole image. Also
+     * {@code null} for an exact decode, since the region decoder only samples by powers of two and
+     * ignores the density scaling that lands on the target size.
+     */
+    static Rect centerCropRegion(final Request data, final int width, final int height) {
+        if (!data.centerCrop || !data.hasSize() || data.exactDecode || data.hasRotationPivot
+                || width <= 0 || height <= 0 || (long) width * height < MIN_REGION_DECODE_PIXELS) {
+            return null;
+        }
+        final float widthRatio = data.targetWidth / (float) width;
+        final float heightRatio = data.targetHeight / (float) height;
+        final Rect region;
+        if (widthRatio > heightRatio) {
+            final int newSize = (int) Math.ceil(height * (heightRatio / widthRatio));
+            final int top = (height - newSize) / 2;
+            region = new Rect(0, top, width, top + newSize);
+        } else {
+            final int newSize = (int) Math.ceil(width * (widthRatio / heightRatio));
+            final int left = (width - newSize) / 2;
+            region = new Rect(left, 0, left + newSize, height);
+        }
+        if ((long) region.width() * region.height() * 4 > (long) width * height * 3) {
+            return null;
+        }
+        return region;
+    }
+
+    static Bitmap transformResult(final Request data, final Bitmap result, final int exifRotation,
+                                  final BitmapPool bitmapPool) {
+        return transformResult(data, result, exifRotation, bitmapPool, true);
+    }
+
+    /**
+     * Apply the built-in transformations of {@code data} and the EXIF rotation to {@code result}.
+     * When {@code releaseInput} is set the input is pooled or recycled if a new bitmap was created.
+     */
+    static Bitmap transformResult(final Request data, Bitmap result, final int exifRotation,
+                                  final BitmapPool bitmapPool, final boolean releaseInput) {
+        final Matrix matrix = new Matrix();
+        final Rect draw = prepareTransform(data, result.getWidth(), result.getHeight(), exifRotation, matrix);
+        if (matrix.isIdentity() && draw.width() == result.getWidth() && draw.height() == result.getHeight()) {
+            // Typical of an exact decode. A mutable bitmap would otherwise be copied as it is.
+            return result;
+        }
 
+        final Bitmap newResult =
+                Bitmap.createBitmap(result, draw.left, draw.top, draw.width(), draw.height(), matrix, true);
+        if (newResult != result) {
+            if (!releaseInput) {
+                return newResult;
+            }
+            if (bitmapPool != BitmapPool.NONE && result.isMutable()) {
+                bitmapPool.put(result);
+            } else {
+                result.recycle();
+            }
+            result = newResult;
+        }
+
+        return result;
+    }
+
+    /**
+     * Set {@code matrix} to the built-in transformations of {@code data} and the EXIF rotation for an
+     * {@code inWidth} by {@code inHeight} input. Returns the part of the input which is drawn.
+     */
+    static Rect prepareTransform(final Request data, final int inWidth, final int inHeight, final int exifRotation,
+                                 final Matrix matrix) {
         int drawX = 0;
         int drawY = 0;
         int drawWidth = inWidth;
         int drawHeight = inHeight;
 
-        final Matrix matrix = new Matrix();
-
         if (data.needsMatrixTransform()) {
             final int targetWidth = data.targetWidth;
             final int targetHeight = data.targetHeight;
@@ -353,12 +870,17 @@ abstract class BitmapHunter implements Runnable {
                     drawX = (inWidth - newSize) / 2;
                     drawWidth = newSize;
                 }
-                matrix.preScale(scale, scale);
+                // An exact decode already has the target size. Only the crop is left to do.
+                if (drawWidth != targetWidth || drawHeight != targetHeight) {
+                    matrix.preScale(scale, scale);
+                }
             } else if (data.centerInside) {
                 final float widthRatio = targetWidth / (float) inWidth;
                 final float heightRatio = targetHeight / (float) inHeight;
                 final float scale = widthRatio < heightRatio ? widthRatio : heightRatio;
-                matrix.preScale(scale, scale);
+                if (Math.round(inWidth * scale) != inWidth || Math.round(inHeight * scale) != inHeight) {
+                    matrix.preScale(scale, scale);
+                }
             } else if (targetWidth != 0 && targetHeight != 0 //
                     && (targetWidth != inWidth || targetHeight != inHeight)) {
                 // If an explicit target size has been specified and they do not match the results bounds,
@@ -373,13 +895,6 @@ abstract class BitmapHunter implements Runnable {
             matrix.preRotate(exifRotation);
         }
 
-        final Bitmap newResult =
-                Bitmap.createBitmap(result, drawX, drawY, drawWidth, drawHeight, matrix, true);
-        if (newResult != result) {
-            result.recycle();
-            result = newResult;
-        }
-
-        return result;
+        return new Rect(drawX, drawY, drawX + drawWidth, drawY + drawHeight);
     }
 }
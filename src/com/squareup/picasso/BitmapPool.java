@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.graphics.Bitmap;
+
+/**
+ * A pool of unused bitmaps which may be handed to the decoder for reuse through
+ * {@link android.graphics.BitmapFactory.Options#inBitmap}.
+ * <p/>
+ * <em>Note:</em> The {@link BitmapPool} is accessed by multiple threads. You must ensure your
+ * implementation is thread safe.
+ */
+public interface BitmapPool {
+    /**
+     * Remove and return a mutable bitmap of exactly the given size and config or {@code null}.
+     */
+    Bitmap get(int width, int height, Bitmap.Config config);
+
+    /**
+     * Offer a bitmap which is no longer referenced to the pool. Implementations may ignore
+     * bitmaps which are immutable, recycled, or too large to hold.
+     */
+    void put(Bitmap bitmap);
+
+    /**
+     * Returns the current size of the pool in bytes.
+     */
+    int size();
+
+    /**
+     * Returns the maximum size in bytes that the pool can hold.
+     */
+    int maxSize();
+
+    /**
+     * Clears the pool.
+     */
+    void clear();
+
+    /**
+     * A pool which does not store any bitmaps.
+     */
+    BitmapPool NONE = new BitmapPool() {
+        @Override
+        public Bitmap get(final int width, final int height, final Bitmap.Config config) {
+            return null;
+        }
+
+        @Override
+        public void put(final Bitmap bitmap) {
+            // Ignore.
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public int maxSize() {
+            return 0;
+        }
+
+        @Override
+        public void clear() {
+        }
+    };
+}
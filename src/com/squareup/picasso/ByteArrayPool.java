@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounded pool of byte arrays for reading whole images into memory. Buffers are handed out
+ * smallest-first and dropped once the pool would exceed its maximum size.
+ */
+final class ByteArrayPool {
+    private final List<byte[]> buffers;
+    private final int maxSize;
+
+    private int size;
+
+    ByteArrayPool(final int maxSize) {
+        this.maxSize = maxSize;
+        this.buffers = new ArrayList<byte[]>();
+    }
+
+    /**
+     * Returns a buffer of at least {@code minLength} bytes, reusing a pooled one if possible.
+     */
+    synchronized byte[] get(final int minLength) {
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0, n = buffers.size(); i < n; i++) {
+            final byte[] buffer = buffers.get(i);
+            if (buffer.length >= minLength) {
+                buffers.remove(i);
+                size -= buffer.length;
+                return buffer;
+            }
+        }
+        return new byte[minLength];
+    }
+
+    /**
+     * Return a buffer obtained from {@link #get(int)} so it can be reused.
+     */
+    synchronized void put(final byte[] buffer) {
+        if (buffer.length > maxSize) {
+            return;
+        }
+        // Keep the pool sorted by length so get() hands out the tightest fit.
+        int index = 0;
+        while (index < buffers.size() && buffers.get(index).length < buffer.length) {
+            index++;
+        }
+        buffers.add(index, buffer);
+        size += buffer.length;
+        while (size > maxSize) {
+            // Drop the smallest buffers first since they are the cheapest to allocate again.
+            size -= buffers.remove(0).length;
+        }
+    }
+}
@@ -21,19 +21,19 @@ import android.graphics.Bitmap;
  * A memory cache for storing the most recently used images.
  * <p/>
  * <em>Note:</em> The {@link Cache} is accessed by multiple threads. You must ensure
- * your {@link Cache} implementation is thread safe when {@link Cache#get(String)} or {@link
- * Cache#set(String, android.graphics.Bitmap)} is called.
+ * your {@link Cache} implementation is thread safe when {@link Cache#get(RequestKey)} or {@link
+ * Cache#set(RequestKey, android.graphics.Bitmap)} is called.
  */
 public interface Cache {
     /**
      * Retrieve an image for the specified {@code key} or {@code null}.
      */
-    Bitmap get(String key);
+    Bitmap get(RequestKey key);
 
     /**
      * Store an image in the cache for the specified {@code key}.
      */
-    void set(String key, Bitmap bitmap);
+    void set(RequestKey key, Bitmap bitmap);
 
     /**
      * Returns the current size of the cache in bytes.
@@ -55,12 +55,12 @@ public interface Cache {
      */
     Cache NONE = new Cache() {
         @Override
-        public Bitmap get(final String key) {
+        public Bitmap get(final RequestKey key) {
             return null;
         }
 
         @Override
-        public void set(final String key, final Bitmap bitmap) {
+        public void set(final RequestKey key, final Bitmap bitmap) {
             // Ignore.
         }
 
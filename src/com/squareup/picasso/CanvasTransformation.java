@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+
+/**
+ * A transformation which draws its source with a different paint or shape, such as a color filter
+ * or rounded corners, but keeps its size.
+ * <p/>
+ * It is fused with the {@link MatrixTransformation matrix transformations} and built-in resize and
+ * rotation right before it: the source is drawn once, through their combined matrix, onto one new
+ * bitmap. {@link #transform(Bitmap)} is only called by code other than Picasso's.
+ */
+public interface CanvasTransformation extends Transformation {
+    /**
+     * Draw {@code source}, mapped by {@code matrix}, onto {@code canvas}. The canvas covers the
+     * mapped source and has an ARGB_8888 bitmap. {@code paint} already filters the bitmap. Without
+     * this transformation the pass would call {@code canvas.drawBitmap(source, matrix, paint)}.
+     * <p/>
+     * Must not modify or recycle {@code source}.
+     */
+    void draw(Canvas canvas, Bitmap source, Matrix matrix, Paint paint);
+}
@@ -30,7 +30,6 @@ import java.io.InputStream;
 import static android.os.Build.VERSION.SDK_INT;
 import static android.os.Build.VERSION_CODES.ICE_CREAM_SANDWICH;
 import static android.provider.ContactsContract.Contacts.openContactPhotoInputStream;
-import static com.squareup.picasso.Picasso.LoadedFrom.DISK;
 
 class ContactsPhotoBitmapHunter extends BitmapHunter {
     /**
@@ -81,11 +80,6 @@ class ContactsPhotoBitmapHunter extends BitmapHunter {
         }
     }
 
-    @Override
-    Picasso.LoadedFrom getLoadedFrom() {
-        return DISK;
-    }
-
     private InputStream getInputStream() throws IOException {
         final ContentResolver contentResolver = context.getContentResolver();
         Uri uri = getData().uri;
@@ -115,17 +109,24 @@ class ContactsPhotoBitmapHunter extends BitmapHunter {
             return null;
         }
         final BitmapFactory.Options options = createBitmapOptions(data);
+        final MarkableInputStream markStream = new MarkableInputStream(stream);
         if (data.hasSize()) {
-            options.inJustDecodeBounds = true;
-            final InputStream is = getInputStream();
-            try {
-                BitmapFactory.decodeStream(is, null, options);
-            } finally {
-                Utils.closeQuietly(is);
+            final ImageHeaderParser.Header header = readHeader(markStream);
+            if (header != null) {
+                calculateInSampleSize(data, header, options);
+            } else {
+                options.inJustDecodeBounds = true;
+                final InputStream is = getInputStream();
+                try {
+                    BitmapFactory.decodeStream(is, null, options);
+                } finally {
+                    Utils.closeQuietly(is);
+                }
+                calculateInSampleSize(data, options);
+                reuseBitmap(options);
             }
-            calculateInSampleSize(data.targetWidth, data.targetHeight, options);
         }
-        return BitmapFactory.decodeStream(stream, null, options);
+        return BitmapFactory.decodeStream(markStream, null, options);
     }
 
     @TargetApi(ICE_CREAM_SANDWICH)
@@ -19,11 +19,15 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
 
 import java.io.IOException;
 import java.io.InputStream;
 
-import static com.squareup.picasso.Picasso.LoadedFrom.DISK;
+import static android.content.ContentResolver.SCHEME_FILE;
+import static android.os.Build.VERSION.SDK_INT;
+import static android.os.Build.VERSION_CODES.GINGERBREAD_MR1;
 
 class ContentStreamBitmapHunter extends BitmapHunter {
     final Context context;
@@ -40,30 +44,99 @@ class ContentStreamBitmapHunter extends BitmapHunter {
         return decodeContentStream(data);
     }
 
-    @Override
-    Picasso.LoadedFrom getLoadedFrom() {
-        return DISK;
-    }
-
     protected Bitmap decodeContentStream(final Request data) throws IOException {
         final ContentResolver contentResolver = context.getContentResolver();
         final BitmapFactory.Options options = createBitmapOptions(data);
-        if (data.hasSize()) {
-            options.inJustDecodeBounds = true;
-            InputStream is = null;
-            try {
-                is = contentResolver.openInputStream(data.uri);
-                BitmapFactory.decodeStream(is, null, options);
-            } finally {
-                Utils.closeQuietly(is);
+        final MarkableInputStream stream = new MarkableInputStream(contentResolver.openInputStream(data.uri));
+        try {
+            final ImageHeaderParser.Header header = readHeader(stream);
+            onHeaderParsed(header);
+            if (header != null && data.centerCrop) {
+                final Bitmap region = decodeCenterCropRegion(data, header, options);
+                if (region != null) {
+                    return region;
+                }
+            }
+            if (data.hasSize()) {
+                if (header != null) {
+                    calculateInSampleSize(data, header, options);
+                } else {
+                    options.inJustDecodeBounds = true;
+                    InputStream is = null;
+                    try {
+                        is = contentResolver.openInputStream(data.uri);
+                        BitmapFactory.decodeStream(is, null, options);
+                    } finally {
+                        Utils.closeQuietly(is);
+                    }
+                    calculateInSampleSize(data, options);
+                    reuseBitmap(options);
+                }
             }
-            calculateInSampleSize(data.targetWidth, data.targetHeight, options);
+            return BitmapFactory.decodeStream(stream, null, options);
+        } finally {
+            Utils.closeQuietly(stream);
         }
-        final InputStream is = contentResolver.openInputStream(data.uri);
+    }
+
+    /**
+     * Decode only the part of a large image which survives the center crop, or return {@code null}
+     * if the crop would not save enough or the format cannot be decoded by region.
+     */
+    private Bitmap decodeCenterCropRegion(final Request data, final ImageHeaderParser.Header header,
+                                          final BitmapFactory.Options options) throws IOException {
+        if (SDK_INT < GINGERBREAD_MR1) {
+            return null;
+        }
+        final Rect region = centerCropRegion(data, header.width, header.height);
+        if (region == null) {
+            return null;
+        }
+
+        InputStream is = null;
+        BitmapRegionDecoder decoder;
         try {
-            return BitmapFactory.decodeStream(is, null, options);
+            if (SCHEME_FILE.equals(data.uri.getScheme())) {
+                decoder = BitmapRegionDecoder.newInstance(data.uri.getPath(), false);
+            } else {
+                is = context.getContentResolver().openInputStream(data.uri);
+                decoder = BitmapRegionDecoder.newInstance(is, false);
+            }
+        } catch (final IOException e) {
+            // Only JPEG and PNG can be decoded by region. Decode the whole image instead.
+            Utils.closeQuietly(is);
+            return null;
+        }
+        try {
+            calculateInSampleSize(data, region.width(), region.height(), options);
+            final Bitmap bitmap = decoder.decodeRegion(region, options);
+            if (bitmap == null) {
+                // The whole image is decoded next. Do not let it inherit the sizing of the region.
+                resetDecodeOptions(options);
+            }
+            return bitmap;
         } finally {
+            decoder.recycle();
             Utils.closeQuietly(is);
         }
     }
+
+    private void resetDecodeOptions(final BitmapFactory.Options options) {
+        options.inSampleSize = 1;
+        options.inScaled = true;
+        options.inDensity = 0;
+        options.inTargetDensity = 0;
+        if (options.inBitmap != null) {
+            bitmapPool.put(options.inBitmap);
+            options.inBitmap = null;
+            reusedBitmap = false;
+        }
+    }
+
+    /**
+     * Called with the header sniffed from the start of the content stream before it is decoded, or
+     * {@code null} if the format was not recognized.
+     */
+    void onHeaderParsed(final ImageHeaderParser.Header header) throws IOException {
+    }
 }
@@ -61,6 +61,14 @@ class DeferredRequestCreator implements ViewTreeObserver.OnPreDrawListener {
         return true;
     }
 
+    ImageView getTarget() {
+        return target.get();
+    }
+
+    Object getTag() {
+        return creator.getTag();
+    }
+
     void cancel() {
         callback = null;
         final ImageView target = this.target.get();
@@ -25,10 +25,17 @@ import android.net.NetworkInfo;
 import android.os.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static android.content.Context.CONNECTIVITY_SERVICE;
 import static android.content.Intent.ACTION_AIRPLANE_MODE_CHANGED;
@@ -37,7 +44,6 @@ import static android.os.Process.THREAD_PRIORITY_BACKGROUND;
 import static com.squareup.picasso.BitmapHunter.forRequest;
 
 class Dispatcher {
-    private static final int RETRY_DELAY = 500;
     private static final int AIRPLANE_MODE_ON = 1;
     private static final int AIRPLANE_MODE_OFF = 0;
 
@@ -51,18 +57,35 @@ class Dispatcher {
     static final int HUNTER_BATCH_COMPLETE = 8;
     static final int NETWORK_STATE_CHANGE = 9;
     static final int AIRPLANE_MODE_CHANGE = 10;
+    static final int TAG_PAUSE = 11;
+    static final int TAG_RESUME = 12;
+    static final int TAG_CANCEL = 13;
+    static final int REQUEST_BATCH_RESUME = 14;
+    static final int HUNTER_RETRY_SUBMIT = 15;
+    static final int HUNTER_FETCHED = 16;
+    static final int REQUEST_DEPRIORITIZE = 17;
+    static final int REQUEST_BATCH_CANCEL = 18;
+
+    static final long BATCH_DELAY = 200; // ms
 
     private static final String DISPATCHER_THREAD_NAME = "Dispatcher";
-    private static final int BATCH_DELAY = 200; // ms
 
     final DispatcherThread dispatcherThread;
     final Context context;
     final ExecutorService service;
+    final ExecutorService localService;
     final Downloader downloader;
-    final Map<String, BitmapHunter> hunterMap;
+    final Map<RequestKey, BitmapHunter> hunterMap;
+    final Map<Object, BitmapHunter> sourceMap;
+    final Set<Object> pausedTags;
+    final Set<Action> pausedActions;
     final Handler handler;
     final Handler mainThreadHandler;
     final Cache cache;
+    final VariantIndex variantIndex;
+    final RetryPolicy retryPolicy;
+    final long batchDelay;
+    final List<BitmapHunter> parkedHunters;
     final Stats stats;
     final List<BitmapHunter> batch;
     final NetworkBroadcastReceiver receiver;
@@ -70,17 +93,27 @@ class Dispatcher {
     NetworkInfo networkInfo;
     boolean airplaneMode;
 
-    Dispatcher(final Context context, final ExecutorService service, final Handler mainThreadHandler,
-               final Downloader downloader, final Cache cache, final Stats stats) {
+    Dispatcher(final Context context, final ExecutorService service, final ExecutorService localService,
+               final Handler mainThreadHandler,
+               final Downloader downloader, final Cache cache, final VariantIndex variantIndex,
+               final RetryPolicy retryPolicy, final long batchDelay, final Stats stats) {
         this.dispatcherThread = new DispatcherThread();
         this.dispatcherThread.start();
         this.context = context;
         this.service = service;
-        this.hunterMap = new LinkedHashMap<String, BitmapHunter>();
+        this.localService = localService;
+        this.hunterMap = new LinkedHashMap<RequestKey, BitmapHunter>();
+        this.sourceMap = new HashMap<Object, BitmapHunter>();
+        this.pausedTags = new HashSet<Object>();
+        this.pausedActions = new LinkedHashSet<Action>();
         this.handler = new DispatcherHandler(dispatcherThread.getLooper(), this);
         this.downloader = downloader;
         this.mainThreadHandler = mainThreadHandler;
         this.cache = cache;
+        this.variantIndex = variantIndex;
+        this.retryPolicy = retryPolicy;
+        this.batchDelay = batchDelay;
+        this.parkedHunters = new ArrayList<BitmapHunter>();
         this.stats = stats;
         this.batch = new ArrayList<BitmapHunter>(4);
         this.airplaneMode = Utils.isAirplaneModeOn(this.context);
@@ -90,6 +123,7 @@ class Dispatcher {
 
     void shutdown() {
         service.shutdown();
+        localService.shutdown();
         dispatcherThread.quit();
         receiver.unregister();
     }
@@ -102,12 +136,32 @@ class Dispatcher {
         handler.sendMessage(handler.obtainMessage(REQUEST_CANCEL, action));
     }
 
+    void dispatchDeprioritize(final Action action) {
+        handler.sendMessage(handler.obtainMessage(REQUEST_DEPRIORITIZE, action));
+    }
+
+    void dispatchPauseTag(final Object tag) {
+        handler.sendMessage(handler.obtainMessage(TAG_PAUSE, tag));
+    }
+
+    void dispatchResumeTag(final Object tag) {
+        handler.sendMessage(handler.obtainMessage(TAG_RESUME, tag));
+    }
+
+    void dispatchCancelTag(final Object tag) {
+        handler.sendMessage(handler.obtainMessage(TAG_CANCEL, tag));
+    }
+
     void dispatchComplete(final BitmapHunter hunter) {
         handler.sendMessage(handler.obtainMessage(HUNTER_COMPLETE, hunter));
     }
 
     void dispatchRetry(final BitmapHunter hunter) {
-        handler.sendMessageDelayed(handler.obtainMessage(HUNTER_RETRY, hunter), RETRY_DELAY);
+        handler.sendMessage(handler.obtainMessage(HUNTER_RETRY, hunter));
+    }
+
+    void dispatchFetched(final BitmapHunter hunter) {
+        handler.sendMessage(handler.obtainMessage(HUNTER_FETCHED, hunter));
     }
 
     void dispatchFailed(final BitmapHunter hunter) {
@@ -124,30 +178,194 @@ class Dispatcher {
     }
 
     void performSubmit(final Action action) {
+        if (pausedTags.contains(action.getTag())) {
+            pausedActions.add(action);
+            return;
+        }
+
         BitmapHunter hunter = hunterMap.get(action.getKey());
         if (hunter != null) {
+            final Picasso.Priority previous = hunter.getPriority();
             hunter.attach(action);
+            final ExecutorService executor = executorFor(hunter);
+            if (hunter.getPriority() != previous && executor instanceof PicassoExecutorService) {
+                ((PicassoExecutorService) executor).reprioritize(hunter);
+            }
             return;
         }
 
         if (service.isShutdown()) {
+            if (action instanceof GetAction) {
+                ((GetAction) action).finish(null, null);
+            } else {
+                cancelDropped(Collections.singletonList(action));
+            }
             return;
         }
 
         hunter = forRequest(context, action.getPicasso(), this, cache, stats, action, downloader);
-        hunter.future = service.submit(hunter);
         hunterMap.put(action.getKey(), hunter);
+
+        // Coalesce with a hunter for the same source at a different size. Only one of them decodes
+        // and the other is derived from its cached result.
+        final Object source = VariantIndex.sourceOf(action.getKey());
+        final BitmapHunter leader = sourceMap.get(source);
+        if (leader != null) {
+            if (canFollow(leader, hunter)) {
+                hunter.follow(leader);
+                return;
+            }
+            if (canLead(hunter) && canFollow(hunter, leader) && dequeue(leader)) {
+                // The leader has not started yet and this request is larger. Decode at this size.
+                final List<BitmapHunter> followers = leader.followers;
+                leader.followers = null;
+                if (followers != null) {
+                    for (final BitmapHunter follower : followers) {
+                        follower.follow(hunter);
+                    }
+                }
+                leader.follow(hunter);
+            }
+        }
+
+        submit(hunter);
+        if (canLead(hunter)) {
+            sourceMap.put(source, hunter);
+        }
     }
 
     void performCancel(final Action action) {
-        final String key = action.getKey();
+        final RequestKey key = action.getKey();
         final BitmapHunter hunter = hunterMap.get(key);
         if (hunter != null) {
             hunter.detach(action);
-            if (hunter.cancel()) {
+            if (hunter.cancel() || unpark(hunter)) {
                 hunterMap.remove(key);
+                releaseFollowers(hunter);
             }
         }
+        pausedActions.remove(action);
+    }
+
+    void performDeprioritize(final Action action) {
+        final BitmapHunter hunter = hunterMap.get(action.getKey());
+        if (hunter == null || !hunter.deprioritize(action)) {
+            return;
+        }
+        // Hunters which are running keep their thread, but a decode they hand off later queues behind.
+        final ExecutorService executor = executorFor(hunter);
+        if (executor instanceof PicassoExecutorService) {
+            ((PicassoExecutorService) executor).reprioritize(hunter);
+        }
+    }
+
+    void performPauseTag(final Object tag) {
+        if (!pausedTags.add(tag)) {
+            return;
+        }
+
+        // Park the tagged actions of hunters which have not started yet. Hunters which are already
+        // running keep all of their actions so the work they have done is not thrown away.
+        for (final Iterator<BitmapHunter> it = hunterMap.values().iterator(); it.hasNext(); ) {
+            final BitmapHunter hunter = it.next();
+            final List<Action> actions = hunter.getActions();
+            List<Action> tagged = null;
+            //noinspection ForLoopReplaceableByForEach
+            for (int i = 0, n = actions.size(); i < n; i++) {
+                final Action action = actions.get(i);
+                if (action.getTag().equals(tag)) {
+                    if (tagged == null) {
+                        tagged = new ArrayList<Action>(n);
+                    }
+                    tagged.add(action);
+                }
+            }
+            if (tagged == null) {
+                continue;
+            }
+            final boolean allTagged = tagged.size() == actions.size();
+            final boolean parked = parkedHunters.contains(hunter);
+            final BitmapHunter leader = hunter.leader;
+            if (!dequeue(hunter)) {
+                continue;
+            }
+            for (final Action action : tagged) {
+                hunter.detach(action);
+                pausedActions.add(action);
+            }
+            if (allTagged) {
+                it.remove();
+                releaseFollowers(hunter);
+            } else if (parked) {
+                // Put the hunter back where it was for the requests which are not paused.
+                parkedHunters.add(hunter);
+            } else if (leader != null) {
+                hunter.follow(leader);
+            } else {
+                submit(hunter);
+            }
+        }
+    }
+
+    void performResumeTag(final Object tag) {
+        if (!pausedTags.remove(tag)) {
+            return;
+        }
+
+        List<Action> resumed = null;
+        for (final Iterator<Action> it = pausedActions.iterator(); it.hasNext(); ) {
+            final Action action = it.next();
+            if (action.getTag().equals(tag)) {
+                if (resumed == null) {
+                    resumed = new ArrayList<Action>();
+                }
+                resumed.add(action);
+                it.remove();
+            }
+        }
+
+        if (resumed != null) {
+            mainThreadHandler.sendMessage(mainThreadHandler.obtainMessage(REQUEST_BATCH_RESUME, resumed));
+        }
+    }
+
+    void performCancelTag(final Object tag) {
+        final List<Action> dropped = new ArrayList<Action>();
+        List<BitmapHunter> cancelled = null;
+        for (final Iterator<BitmapHunter> it = hunterMap.values().iterator(); it.hasNext(); ) {
+            final BitmapHunter hunter = it.next();
+            final List<Action> actions = hunter.getActions();
+            for (int i = actions.size() - 1; i >= 0; i--) {
+                final Action action = actions.get(i);
+                if (action.getTag().equals(tag)) {
+                    hunter.detach(action);
+                    dropped.add(action);
+                }
+            }
+            if (hunter.cancel() || unpark(hunter)) {
+                it.remove();
+                if (cancelled == null) {
+                    cancelled = new ArrayList<BitmapHunter>();
+                }
+                cancelled.add(hunter);
+            }
+        }
+        if (cancelled != null) {
+            // Released followers may be cancelled by this tag too, so only release after the sweep.
+            for (final BitmapHunter hunter : cancelled) {
+                releaseFollowers(hunter);
+            }
+        }
+        for (final Iterator<Action> it = pausedActions.iterator(); it.hasNext(); ) {
+            final Action action = it.next();
+            if (action.getTag().equals(tag)) {
+                it.remove();
+                dropped.add(action);
+            }
+        }
+        if (!dropped.isEmpty()) {
+            cancelDropped(dropped);
+        }
     }
 
     void performRetry(final BitmapHunter hunter) {
@@ -158,18 +376,95 @@ class Dispatcher {
             return;
         }
 
+        // Followers must not wait out the retry. They load the source on their own from here on.
+        releaseFollowers(hunter);
+
+        if (hunter.getActions().isEmpty()) {
+            // Every request was cancelled while the hunter was running. Nobody needs a retry.
+            hunterMap.remove(hunter.getKey());
+            return;
+        }
+
+        if (hunter.needsNetwork() && isOffline()) {
+            if (!hunter.localCacheOnly) {
+                // Serve what we can from the local cache right away, without spending a retry.
+                hunter.localCacheOnly = true;
+                submit(hunter);
+            } else {
+                // Synchronous requests fail now rather than block until connectivity returns.
+                finishWaiters(hunter);
+                if (hunter.getActions().isEmpty()) {
+                    hunterMap.remove(hunter.getKey());
+                    return;
+                }
+                // Wait for connectivity and retry everything together once it returns.
+                parkedHunters.add(hunter);
+            }
+            return;
+        }
+
         if (hunter.shouldRetry(airplaneMode, networkInfo)) {
-            hunter.future = service.submit(hunter);
+            final long delay = retryPolicy.getDelayMillis(hunter.retryAttempt++);
+            handler.sendMessageDelayed(handler.obtainMessage(HUNTER_RETRY_SUBMIT, hunter), delay);
         } else {
             performError(hunter);
         }
     }
 
+    void performRetrySubmit(final BitmapHunter hunter) {
+        if (hunter.isCancelled()) return;
+
+        if (service.isShutdown()) {
+            performError(hunter);
+            return;
+        }
+
+        if (hunter.getActions().isEmpty() && hunter.followers == null) {
+            hunterMap.remove(hunter.getKey());
+            releaseFollowers(hunter);
+            return;
+        }
+
+        submit(hunter);
+    }
+
+    void performFetched(final BitmapHunter hunter) {
+        if (hunter.isCancelled()) {
+            hunter.releaseFetched();
+            return;
+        }
+
+        if (service.isShutdown()) {
+            hunter.releaseFetched();
+            performError(hunter);
+            return;
+        }
+
+        if (hunter.getActions().isEmpty() && hunter.followers == null) {
+            // Every request was cancelled while the hunter was fetching.
+            hunter.releaseFetched();
+            hunterMap.remove(hunter.getKey());
+            releaseFollowers(hunter);
+            return;
+        }
+
+        submit(hunter);
+    }
+
     void performComplete(final BitmapHunter hunter) {
+        if (hunter.networkBytes > 0 && service instanceof PicassoExecutorService) {
+            ((PicassoExecutorService) service).recordDownload(hunter.networkBytes, hunter.timeToFirstByte,
+                    hunter.networkTime);
+        }
         if (!hunter.shouldSkipMemoryCache()) {
             cache.set(hunter.getKey(), hunter.getResult());
+            if (hunter.isScaledCopy()) {
+                variantIndex.put(hunter.getKey(), hunter.getResult());
+            }
         }
         hunterMap.remove(hunter.getKey());
+        releaseFollowers(hunter);
+        finishWaiters(hunter);
         batch(hunter);
     }
 
@@ -181,27 +476,175 @@ class Dispatcher {
 
     void performError(final BitmapHunter hunter) {
         hunterMap.remove(hunter.getKey());
+        releaseFollowers(hunter);
+        finishWaiters(hunter);
         batch(hunter);
     }
 
     void performAirplaneModeChange(final boolean airplaneMode) {
         this.airplaneMode = airplaneMode;
+        if (!isOffline()) {
+            releaseParkedHunters();
+        }
     }
 
     void performNetworkStateChange(final NetworkInfo info) {
         networkInfo = info;
+        if (!isOffline()) {
+            releaseParkedHunters();
+        }
         if (service instanceof PicassoExecutorService) {
             ((PicassoExecutorService) service).adjustThreadCount(info);
         }
     }
 
+    /**
+     * Remove a hunter which has not started yet from the executor queue.
+     */
+    private boolean dequeue(final BitmapHunter hunter) {
+        if (parkedHunters.remove(hunter)) {
+            return true;
+        }
+        if (hunter.leader != null) {
+            hunter.leader.followers.remove(hunter);
+            hunter.leader = null;
+            return true;
+        }
+        final ExecutorService executor = executorFor(hunter);
+        if (!(executor instanceof ThreadPoolExecutor) || !(hunter.future instanceof Runnable)) {
+            return false;
+        }
+        if (!((ThreadPoolExecutor) executor).remove((Runnable) hunter.future)) {
+            return false;
+        }
+        hunter.future.cancel(false);
+        hunter.releaseFetched();
+        // The buffered source is gone. If the hunter is submitted again it must look it up anew.
+        hunter.fetched = false;
+        return true;
+    }
+
+    private boolean isOffline() {
+        // Without the network state permission we only learn about airplane mode.
+        return airplaneMode || (networkInfo != null && !networkInfo.isConnectedOrConnecting());
+    }
+
+    /**
+     * Retry every hunter which failed while the device was offline.
+     */
+    private void releaseParkedHunters() {
+        if (parkedHunters.isEmpty()) {
+            return;
+        }
+        final List<BitmapHunter> released = new ArrayList<BitmapHunter>(parkedHunters);
+        parkedHunters.clear();
+        for (final BitmapHunter hunter : released) {
+            hunter.localCacheOnly = false;
+            performRetrySubmit(hunter);
+        }
+    }
+
+    /**
+     * Drop a parked hunter whose requests were all cancelled.
+     */
+    private boolean unpark(final BitmapHunter hunter) {
+        return hunter.getActions().isEmpty() && parkedHunters.remove(hunter);
+    }
+
+    private void submit(final BitmapHunter hunter) {
+        hunter.submitTime = SystemClock.uptimeMillis();
+        hunter.future = executorFor(hunter).submit(hunter);
+    }
+
+    /**
+     * Network hunters wait on I/O and are sized to the connection. Everything else decodes local
+     * data and is bound by the processors, so it must not queue behind slow downloads. That
+     * includes network sources once their bytes have been fetched.
+     */
+    private ExecutorService executorFor(final BitmapHunter hunter) {
+        return hunter.needsNetwork() && !hunter.fetched ? service : localService;
+    }
+
+    /**
+     * Submit the hunters waiting on {@code leader}, which is done or gone. Those it can serve are
+     * derived from its cached result. The rest decode on their own.
+     */
+    private void releaseFollowers(final BitmapHunter leader) {
+        final Object source = VariantIndex.sourceOf(leader.getKey());
+        if (sourceMap.get(source) == leader) {
+            sourceMap.remove(source);
+        }
+        final List<BitmapHunter> followers = leader.followers;
+        if (followers == null) {
+            return;
+        }
+        leader.followers = null;
+        for (final BitmapHunter follower : followers) {
+            follower.leader = null;
+            if (!service.isShutdown()) {
+                submit(follower);
+            }
+        }
+    }
+
+    /**
+     * Whether {@code hunter} will cache a uniformly scaled copy of the whole source that other
+     * requests for the same source can be derived from.
+     */
+    private static boolean canLead(final BitmapHunter hunter) {
+        final Request data = hunter.getData();
+        return !hunter.shouldSkipMemoryCache()
+                && data.rotationDegrees == 0
+                && !data.centerCrop
+                && !data.hasCustomTransformations()
+                && (!data.hasSize() || data.centerInside);
+    }
+
+    /**
+     * Whether {@code follower} can be derived from the result of {@code leader} without scaling up,
+     * whatever the size of the source turns out to be.
+     */
+    private static boolean canFollow(final BitmapHunter leader, final BitmapHunter follower) {
+        final Request leaderData = leader.getData();
+        final Request data = follower.getData();
+        if (follower.shouldSkipMemoryCache() || data.hasRotationPivot
+                || (data.config != null && data.config != leaderData.config)) {
+            return false;
+        }
+        return VariantIndex.canServe(leaderData, data);
+    }
+
+    /**
+     * Hand the outcome of {@code hunter} straight to the threads blocked in a synchronous get, and
+     * detach them so that the main thread does not see them again.
+     */
+    /**
+     * Let {@code actions}, which will never complete, know that they were cancelled. Requests
+     * cancelled on the main thread already know.
+     */
+    private void cancelDropped(final List<Action> actions) {
+        mainThreadHandler.sendMessage(mainThreadHandler.obtainMessage(REQUEST_BATCH_CANCEL, actions));
+    }
+
+    private void finishWaiters(final BitmapHunter hunter) {
+        final List<Action> actions = hunter.getActions();
+        for (int i = actions.size() - 1; i >= 0; i--) {
+            final Action action = actions.get(i);
+            if (action instanceof GetAction) {
+                ((GetAction) action).finish(hunter.getResult(), hunter.getException());
+                hunter.detach(action);
+            }
+        }
+    }
+
     private void batch(final BitmapHunter hunter) {
         if (hunter.isCancelled()) {
             return;
         }
         batch.add(hunter);
         if (!handler.hasMessages(HUNTER_DELAY_NEXT_BATCH)) {
-            handler.sendEmptyMessageDelayed(HUNTER_DELAY_NEXT_BATCH, BATCH_DELAY);
+            // Without a delay this still gathers the hunters which completed in the same loop.
+            handler.sendEmptyMessageDelayed(HUNTER_DELAY_NEXT_BATCH, batchDelay);
         }
     }
 
@@ -226,6 +669,11 @@ class Dispatcher {
                     dispatcher.performCancel(action);
                     break;
                 }
+                case REQUEST_DEPRIORITIZE: {
+                    final Action action = (Action) msg.obj;
+                    dispatcher.performDeprioritize(action);
+                    break;
+                }
                 case HUNTER_COMPLETE: {
                     final BitmapHunter hunter = (BitmapHunter) msg.obj;
                     dispatcher.performComplete(hunter);
@@ -236,6 +684,16 @@ class Dispatcher {
                     dispatcher.performRetry(hunter);
                     break;
                 }
+                case HUNTER_RETRY_SUBMIT: {
+                    final BitmapHunter hunter = (BitmapHunter) msg.obj;
+                    dispatcher.performRetrySubmit(hunter);
+                    break;
+                }
+                case HUNTER_FETCHED: {
+                    final BitmapHunter hunter = (BitmapHunter) msg.obj;
+                    dispatcher.performFetched(hunter);
+                    break;
+                }
                 case HUNTER_DECODE_FAILED: {
                     final BitmapHunter hunter = (BitmapHunter) msg.obj;
                     dispatcher.performError(hunter);
@@ -254,6 +712,18 @@ class Dispatcher {
                     dispatcher.performAirplaneModeChange(msg.arg1 == AIRPLANE_MODE_ON);
                     break;
                 }
+                case TAG_PAUSE: {
+                    dispatcher.performPauseTag(msg.obj);
+                    break;
+                }
+                case TAG_RESUME: {
+                    dispatcher.performResumeTag(msg.obj);
+                    break;
+                }
+                case TAG_CANCEL: {
+                    dispatcher.performCancelTag(msg.obj);
+                    break;
+                }
                 default:
                     Picasso.HANDLER.post(new Runnable() {
                         @Override
@@ -54,6 +54,7 @@ public interface Downloader {
         final InputStream stream;
         final Bitmap bitmap;
         final boolean cached;
+        final long contentLength;
 
         /**
          * Response image and info.
@@ -68,6 +69,7 @@ public interface Downloader {
             this.stream = null;
             this.bitmap = bitmap;
             this.cached = loadedFromCache;
+            this.contentLength = -1;
         }
 
         /**
@@ -77,12 +79,24 @@ public interface Downloader {
          * @param loadedFromCache {@code true} if the source of the stream is from a local disk cache.
          */
         public Response(final InputStream stream, final boolean loadedFromCache) {
+            this(stream, loadedFromCache, -1);
+        }
+
+        /**
+         * Response stream and info.
+         *
+         * @param stream          Image data stream.
+         * @param loadedFromCache {@code true} if the source of the stream is from a local disk cache.
+         * @param contentLength   The length of the stream in bytes or {@code -1} if unknown.
+         */
+        public Response(final InputStream stream, final boolean loadedFromCache, final long contentLength) {
             if (stream == null) {
                 throw new IllegalArgumentException("Stream may not be null.");
             }
             this.stream = stream;
             this.bitmap = null;
             this.cached = loadedFromCache;
+            this.contentLength = contentLength;
         }
 
         /**
@@ -94,6 +108,13 @@ public interface Downloader {
             return stream;
         }
 
+        /**
+         * The length of the {@link #getInputStream() stream} in bytes or {@code -1} if unknown.
+         */
+        public long getContentLength() {
+            return contentLength;
+        }
+
         /**
          * Bitmap representing the image.
          * <p/>
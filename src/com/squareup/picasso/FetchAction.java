@@ -18,8 +18,9 @@ package com.squareup.picasso;
 import android.graphics.Bitmap;
 
 class FetchAction extends Action<Void> {
-    FetchAction(final Picasso picasso, final Request data, final boolean skipCache, final String key) {
-        super(picasso, null, data, skipCache, false, 0, null, key);
+    FetchAction(final Picasso picasso, final Request data, final boolean skipCache, final RequestKey key,
+                final Picasso.Priority priority, final Object tag) {
+        super(picasso, null, data, skipCache, false, 0, null, key, priority, tag);
     }
 
     @Override
@@ -16,7 +16,6 @@
 package com.squareup.picasso;
 
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.media.ExifInterface;
 import android.net.Uri;
 
@@ -32,10 +31,12 @@ class FileBitmapHunter extends ContentStreamBitmapHunter {
     }
 
     @Override
-    Bitmap decode(final Request data)
-            throws IOException {
-        setExifRotation(getFileExifRotation(data.uri));
-        return super.decode(data);
+    void onHeaderParsed(final ImageHeaderParser.Header header) throws IOException {
+        if (header != null && header.exifRotation != ImageHeaderParser.EXIF_ROTATION_UNKNOWN) {
+            setExifRotation(header.exifRotation);
+        } else {
+            setExifRotation(getFileExifRotation(getData().uri));
+        }
     }
 
     static int getFileExifRotation(final Uri uri) throws IOException {
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.os.Handler;
+import android.view.Choreographer;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+import static android.os.Build.VERSION.SDK_INT;
+import static android.os.Build.VERSION_CODES.JELLY_BEAN;
+
+/**
+ * Delivers completed hunters on display frames rather than on a fixed delay. A lone image is shown
+ * on the very next frame. A large batch is spread over several frames: each frame stops after
+ * {@code maxCompletionsPerFrame} requests were completed and carries the rest to the next one.
+ * <p/>
+ * Only used from the main thread.
+ */
+final class FrameDelivery {
+    private static final long FALLBACK_FRAME_DELAY = 16; // ms
+
+    /**
+     * Runs a callback on the next display frame.
+     */
+    interface FrameClock {
+        void postFrameCallback(Runnable callback);
+    }
+
+    private final FrameClock clock;
+    private final int maxCompletionsPerFrame;
+    private final ArrayDeque<BitmapHunter> pending = new ArrayDeque<BitmapHunter>();
+    private final Runnable frame = new Runnable() {
+        @Override
+        public void run() {
+            doFrame();
+        }
+    };
+
+    private boolean scheduled;
+
+    FrameDelivery(final FrameClock clock, final int maxCompletionsPerFrame) {
+        this.clock = clock;
+        this.maxCompletionsPerFrame = maxCompletionsPerFrame;
+    }
+
+    void deliver(final List<BitmapHunter> batch) {
+        pending.addAll(batch);
+        schedule();
+    }
+
+    void clear() {
+        pending.clear();
+    }
+
+    void doFrame() {
+        scheduled = false;
+        int completions = 0;
+        // A hunter is never split, so one with more requests than the cap gets a frame to itself.
+        while (!pending.isEmpty() && completions < maxCompletionsPerFrame) {
+            final BitmapHunter hunter = pending.poll();
+            completions += Math.max(1, hunter.getActions().size());
+            hunter.picasso.complete(hunter);
+        }
+        if (!pending.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (!scheduled && !pending.isEmpty()) {
+            scheduled = true;
+            clock.postFrameCallback(frame);
+        }
+    }
+
+    /**
+     * Returns a clock driven by the display's vsync where available, or by the main thread
+     * handler at a typical frame interval.
+     */
+    static FrameClock createClock(final Handler mainThreadHandler) {
+        if (SDK_INT >= JELLY_BEAN) {
+            return new ChoreographerClock();
+        }
+        return new HandlerClock(mainThreadHandler);
+    }
+
+    private static final class ChoreographerClock implements FrameClock {
+        private Choreographer choreographer;
+
+        @Override
+        public void postFrameCallback(final Runnable callback) {
+            if (choreographer == null) {
+                // Bound to the calling looper, so only obtain it once we are on the main thread.
+                choreographer = Choreographer.getInstance();
+            }
+            choreographer.postFrameCallback(new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(final long frameTimeNanos) {
+                    callback.run();
+                }
+            });
+        }
+    }
+
+    private static final class HandlerClock implements FrameClock {
+        private final Handler handler;
+
+        HandlerClock(final Handler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void postFrameCallback(final Runnable callback) {
+            handler.postDelayed(callback, FALLBACK_FRAME_DELAY);
+        }
+    }
+}
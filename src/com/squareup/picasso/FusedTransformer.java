@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import java.util.List;
+
+/**
+ * Draws a run of {@link MatrixTransformation}s, optionally ending with a
+ * {@link CanvasTransformation}, in a single pass. The matrices are concatenated, so only the final
+ * bitmap is ever allocated.
+ */
+final class FusedTransformer {
+    private FusedTransformer() {
+        // No instances.
+    }
+
+    /**
+     * Returns the end of the run of fusable transformations starting at {@code start}, or
+     * {@code start} if the transformation there cannot be fused.
+     */
+    static int runEnd(final List<Transformation> transformations, final int start) {
+        int end = start;
+        final int count = transformations.size();
+        while (end < count && transformations.get(end) instanceof MatrixTransformation) {
+            end++;
+        }
+        if (end < count && transformations.get(end) instanceof CanvasTransformation) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Draw the {@code draw} part of {@code source} through {@code matrix} and then through the
+     * transformations from {@code start} to {@code end}. The source is pooled or recycled if a new
+     * bitmap was created.
+     */
+    static Bitmap draw(final Bitmap source, final Rect draw, final Matrix matrix,
+                       final List<Transformation> transformations, final int start, final int end,
+                       final BitmapPool bitmapPool) {
+        final RectF bounds = new RectF(draw.left, draw.top, draw.right, draw.bottom);
+        matrix.mapRect(bounds);
+        matrix.postTranslate(-bounds.left, -bounds.top);
+        boolean rectStaysRect = matrix.rectStaysRect();
+
+        CanvasTransformation canvasTransformation = null;
+        for (int i = start; i < end; i++) {
+            final Transformation transformation = transformations.get(i);
+            if (transformation instanceof CanvasTransformation) {
+                canvasTransformation = (CanvasTransformation) transformation;
+                continue;
+            }
+            final int width = Math.round(bounds.width());
+            final int height = Math.round(bounds.height());
+            final Matrix step = new Matrix();
+            ((MatrixTransformation) transformation).concat(step, width, height);
+            bounds.set(0, 0, width, height);
+            step.mapRect(bounds);
+            step.postTranslate(-bounds.left, -bounds.top);
+            matrix.postConcat(step);
+            rectStaysRect &= step.rectStaysRect();
+        }
+
+        final int width = Math.round(bounds.width());
+        final int height = Math.round(bounds.height());
+        final boolean wholeSource = draw.left == 0 && draw.top == 0 //
+                && draw.right == source.getWidth() && draw.bottom == source.getHeight();
+        if (canvasTransformation == null && wholeSource && matrix.isIdentity()) {
+            return source;
+        }
+
+        // Like Bitmap.createBitmap(), keep the source config unless the corners need transparency.
+        final Bitmap.Config config;
+        if (rectStaysRect && canvasTransformation == null && source.getConfig() != null) {
+            config = source.getConfig();
+        } else {
+            config = Bitmap.Config.ARGB_8888;
+        }
+        Bitmap result = bitmapPool.get(width, height, config);
+        if (result != null) {
+            result.eraseColor(Color.TRANSPARENT);
+        } else {
+            result = Bitmap.createBitmap(width, height, config);
+        }
+        result.setDensity(source.getDensity());
+
+        final Canvas canvas = new Canvas(result);
+        final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        if (!rectStaysRect) {
+            paint.setAntiAlias(true);
+            if (!wholeSource) {
+                // The mapped crop is not a rectangle, so the canvas bounds do not clip the rest of the
+                // source away. Clip to the crop in source coordinates, then go back to the identity.
+                final Matrix inverse = new Matrix();
+                if (matrix.invert(inverse)) {
+                    canvas.concat(matrix);
+                    canvas.clipRect(draw);
+                    canvas.concat(inverse);
+                }
+            }
+        }
+        if (canvasTransformation != null) {
+            canvasTransformation.draw(canvas, source, matrix, paint);
+        } else {
+            canvas.drawBitmap(source, matrix, paint);
+        }
+
+        if (bitmapPool != BitmapPool.NONE && source.isMutable()) {
+            bitmapPool.put(source);
+        } else {
+            source.recycle();
+        }
+        return result;
+    }
+}
@@ -17,16 +17,124 @@ package com.squareup.picasso;
 
 import android.graphics.Bitmap;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The action behind {@link RequestCreator#get()} and {@link RequestCreator#submit()}. It joins the
+ * hunters of the dispatcher like any other request, but the dispatcher hands it the result directly
+ * so that its consumer never depends on the main thread.
+ */
 class GetAction extends Action<Void> {
-    GetAction(final Picasso picasso, final Request data, final boolean skipCache, final String key) {
-        super(picasso, null, data, skipCache, false, 0, null, key);
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    Runnable onFinish; // Set before the action is submitted. Runs on the finishing thread.
+
+    private volatile Bitmap result;
+    private volatile Exception exception;
+    private volatile boolean abandoned;
+
+    GetAction(final Picasso picasso, final Request data, final boolean skipCache, final RequestKey key,
+              final Picasso.Priority priority) {
+        super(picasso, null, data, skipCache, false, 0, null, key, priority, null);
     }
 
     @Override
     void complete(final Bitmap result, final Picasso.LoadedFrom from) {
+        finish(result, null);
     }
 
     @Override
     public void error() {
+        finish(null, null);
+    }
+
+    /**
+     * Hand the outcome to the waiting thread. Only the first call counts.
+     */
+    void finish(final Bitmap result, final Exception exception) {
+        synchronized (this) {
+            if (latch.getCount() == 0) {
+                return;
+            }
+            this.result = result;
+            this.exception = exception;
+            latch.countDown();
+        }
+        if (onFinish != null) {
+            onFinish.run();
+        }
+    }
+
+    /**
+     * Give up on a request which has not finished yet and cancel it. Returns whether it was still
+     * pending.
+     */
+    boolean abandonIfPending() {
+        synchronized (this) {
+            if (latch.getCount() == 0) {
+                return false;
+            }
+            abandoned = true;
+            latch.countDown();
+        }
+        abandon();
+        if (onFinish != null) {
+            onFinish.run();
+        }
+        return true;
+    }
+
+    boolean isDone() {
+        return latch.getCount() == 0;
+    }
+
+    boolean isAbandoned() {
+        return abandoned;
+    }
+
+    Bitmap getResult() {
+        return result;
+    }
+
+    Exception getException() {
+        return exception;
+    }
+
+    /**
+     * Block until the request finished, or for at most {@code timeout} when it is positive.
+     * Requests which time out or are interrupted are cancelled.
+     *
+     * @return The bitmap, or {@code null} if the request failed without an I/O error.
+     */
+    Bitmap await(final long timeout, final TimeUnit unit) throws IOException {
+        final boolean finished;
+        try {
+            if (timeout > 0) {
+                finished = latch.await(timeout, unit);
+            } else {
+                latch.await();
+                finished = true;
+            }
+        } catch (final InterruptedException e) {
+            abandon();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the image.");
+        }
+        if (!finished) {
+            abandon();
+            throw new InterruptedIOException("Timed out waiting for the image.");
+        }
+        if (exception instanceof IOException) {
+            throw (IOException) exception;
+        }
+        return result;
+    }
+
+    private void abandon() {
+        cancel();
+        picasso.dispatcher.dispatchCancel(this);
     }
 }
@@ -0,0 +1,380 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the dimensions and EXIF orientation of JPEG, PNG, GIF and WebP images from the first bytes
+ * of a stream so that the source does not need to be opened again for a bounds decode.
+ * <p/>
+ * Never reads more than {@link #MAX_HEADER_SIZE} bytes, so callers can rewind a
+ * {@link MarkableInputStream} after parsing. Returns {@code null} for anything it does not
+ * understand and callers fall back to {@link android.graphics.BitmapFactory}.
+ */
+final class ImageHeaderParser {
+    static final int MAX_HEADER_SIZE = 64 * 1024;
+
+    /**
+     * Returned as {@link Header#exifRotation} when an EXIF block was found but could not be read.
+     */
+    static final int EXIF_ROTATION_UNKNOWN = -1;
+
+    private static final int JPEG_SOI = 0xD8;
+    private static final int JPEG_EOI = 0xD9;
+    private static final int JPEG_SOS = 0xDA;
+    private static final int JPEG_APP1 = 0xE1;
+    private static final int JPEG_TEM = 0x01;
+    private static final int JPEG_RST0 = 0xD0;
+    private static final int JPEG_RST7 = 0xD7;
+    private static final int JPEG_SOF0 = 0xC0;
+    private static final int JPEG_SOF15 = 0xCF;
+    private static final int JPEG_DHT = 0xC4;
+    private static final int JPEG_JPG = 0xC8;
+    private static final int JPEG_DAC = 0xCC;
+    private static final int EXIF_TAG_ORIENTATION = 0x0112;
+    private static final int EXIF_ORIENTATION_ROTATE_90 = 6;
+    private static final int EXIF_ORIENTATION_ROTATE_180 = 3;
+    private static final int EXIF_ORIENTATION_ROTATE_270 = 8;
+    private static final byte[] EXIF_PREAMBLE = {'E', 'x', 'i', 'f', 0, 0};
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * The size and orientation of an image as stored, before any rotation is applied.
+     */
+    static final class Header {
+        final int width;
+        final int height;
+        /**
+         * Clockwise rotation in degrees from the EXIF orientation, {@code 0} if there is none, or
+         * {@link #EXIF_ROTATION_UNKNOWN}.
+         */
+        final int exifRotation;
+
+        Header(final int width, final int height, final int exifRotation) {
+            this.width = width;
+            this.height = height;
+            this.exifRotation = exifRotation;
+        }
+    }
+
+    private ImageHeaderParser() {
+        // No instances.
+    }
+
+    /**
+     * Parse the header at the current position of {@code stream} or return {@code null}.
+     */
+    static Header parse(final InputStream stream) throws IOException {
+        final Reader reader = new Reader(stream, MAX_HEADER_SIZE);
+        try {
+            final int first = reader.readByte();
+            if (first == 0xFF) {
+                return reader.readByte() == JPEG_SOI ? parseJpeg(reader) : null;
+            } else if (first == (PNG_SIGNATURE[0] & 0xFF)) {
+                return parsePng(reader);
+            } else if (first == 'G') {
+                return parseGif(reader);
+            } else if (first == 'R') {
+                return parseWebP(reader);
+            }
+            return null;
+        } catch (final EOFException e) {
+            // Truncated or larger than we are willing to read.
+            return null;
+        }
+    }
+
+    private static Header parseJpeg(final Reader reader) throws IOException {
+        int exifRotation = 0;
+        while (true) {
+            if (reader.readByte() != 0xFF) {
+                return null;
+            }
+            int marker = reader.readByte();
+            while (marker == 0xFF) {
+                // Fill bytes.
+                marker = reader.readByte();
+            }
+            if (marker == JPEG_EOI || marker == JPEG_SOS) {
+                // No frame header before the image data.
+                return null;
+            }
+            if (marker == JPEG_TEM || (marker >= JPEG_RST0 && marker <= JPEG_RST7)) {
+                // Standalone markers carry no length.
+                continue;
+            }
+            final int length = reader.readShort(true) - 2;
+            if (length < 0) {
+                return null;
+            }
+            if (marker >= JPEG_SOF0 && marker <= JPEG_SOF15
+                    && marker != JPEG_DHT && marker != JPEG_JPG && marker != JPEG_DAC) {
+                reader.skip(1); // Sample precision.
+                final int height = reader.readShort(true);
+                final int width = reader.readShort(true);
+                if (width == 0 || height == 0) {
+                    return null;
+                }
+                return new Header(width, height, exifRotation);
+            }
+            if (marker == JPEG_APP1) {
+                final byte[] segment = reader.readBytes(length);
+                final int rotation = parseExifRotation(segment);
+                if (rotation != 0) {
+                    exifRotation = rotation;
+                }
+            } else {
+                reader.skip(length);
+            }
+        }
+    }
+
+    /**
+     * Returns the rotation for the orientation tag in an APP1 segment, {@code 0} if the segment is
+     * not EXIF or has no orientation, or {@link #EXIF_ROTATION_UNKNOWN} if it is malformed.
+     */
+    static int parseExifRotation(final byte[] segment) {
+        if (segment.length < EXIF_PREAMBLE.length) {
+            return 0;
+        }
+        for (int i = 0; i < EXIF_PREAMBLE.length; i++) {
+            if (segment[i] != EXIF_PREAMBLE[i]) {
+                return 0;
+            }
+        }
+        final int tiff = EXIF_PREAMBLE.length;
+        if (segment.length < tiff + 8) {
+            return EXIF_ROTATION_UNKNOWN;
+        }
+        final boolean bigEndian;
+        if (segment[tiff] == 'M' && segment[tiff + 1] == 'M') {
+            bigEndian = true;
+        } else if (segment[tiff] == 'I' && segment[tiff + 1] == 'I') {
+            bigEndian = false;
+        } else {
+            return EXIF_ROTATION_UNKNOWN;
+        }
+        if (getShort(segment, tiff + 2, bigEndian) != 42) {
+            return EXIF_ROTATION_UNKNOWN;
+        }
+        final long ifdOffset = getInt(segment, tiff + 4, bigEndian) & 0xFFFFFFFFL;
+        final long ifd = tiff + ifdOffset;
+        if (ifd + 2 > segment.length) {
+            return EXIF_ROTATION_UNKNOWN;
+        }
+        final int entryCount = getShort(segment, (int) ifd, bigEndian);
+        for (int i = 0; i < entryCount; i++) {
+            final int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > segment.length) {
+                return EXIF_ROTATION_UNKNOWN;
+            }
+            if (getShort(segment, entry, bigEndian) == EXIF_TAG_ORIENTATION) {
+                // A SHORT value is stored left-justified in the four byte value field.
+                switch (getShort(segment, entry + 8, bigEndian)) {
+                    case EXIF_ORIENTATION_ROTATE_90:
+                        return 90;
+                    case EXIF_ORIENTATION_ROTATE_180:
+                        return 180;
+                    case EXIF_ORIENTATION_ROTATE_270:
+                        return 270;
+                    default:
+                        return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static Header parsePng(final Reader reader) throws IOException {
+        for (int i = 1; i < PNG_SIGNATURE.length; i++) {
+            if (reader.readByte() != (PNG_SIGNATURE[i] & 0xFF)) {
+                return null;
+            }
+        }
+        reader.skip(4); // Chunk length.
+        if (!reader.readTag("IHDR")) {
+            return null;
+        }
+        final long width = reader.readInt(true) & 0xFFFFFFFFL;
+        final long height = reader.readInt(true) & 0xFFFFFFFFL;
+        if (width == 0 || height == 0 || width > Integer.MAX_VALUE || height > Integer.MAX_VALUE) {
+            return null;
+        }
+        return new Header((int) width, (int) height, 0);
+    }
+
+    private static Header parseGif(final Reader reader) throws IOException {
+        if (!reader.readTag("IF8")) {
+            return null;
+        }
+        final int version = reader.readByte();
+        if ((version != '7' && version != '9') || reader.readByte() != 'a') {
+            return null;
+        }
+        final int width = reader.readShort(false);
+        final int height = reader.readShort(false);
+        if (width == 0 || height == 0) {
+            return null;
+        }
+        return new Header(width, height, 0);
+    }
+
+    private static Header parseWebP(final Reader reader) throws IOException {
+        if (!reader.readTag("IFF")) {
+            return null;
+        }
+        reader.skip(4); // File size.
+        if (!reader.readTag("WEBP")) {
+            return null;
+        }
+        final int chunk = reader.readInt(true);
+        reader.skip(4); // Chunk size.
+        final int width;
+        final int height;
+        if (chunk == fourCc("VP8 ")) {
+            reader.skip(3); // Frame tag.
+            if (reader.readByte() != 0x9D || reader.readByte() != 0x01 || reader.readByte() != 0x2A) {
+                return null;
+            }
+            width = reader.readShort(false) & 0x3FFF;
+            height = reader.readShort(false) & 0x3FFF;
+        } else if (chunk == fourCc("VP8L")) {
+            if (reader.readByte() != 0x2F) {
+                return null;
+            }
+            final int bits = reader.readInt(false);
+            width = (bits & 0x3FFF) + 1;
+            height = ((bits >>> 14) & 0x3FFF) + 1;
+        } else if (chunk == fourCc("VP8X")) {
+            reader.skip(4); // Flags and reserved bytes.
+            width = reader.readUInt24() + 1;
+            height = reader.readUInt24() + 1;
+        } else {
+            return null;
+        }
+        if (width == 0 || height == 0) {
+            return null;
+        }
+        return new Header(width, height, 0);
+    }
+
+    private static int fourCc(final String tag) {
+        return (tag.charAt(0) << 24) | (tag.charAt(1) << 16) | (tag.charAt(2) << 8) | tag.charAt(3);
+    }
+
+    private static int getShort(final byte[] bytes, final int offset, final boolean bigEndian) {
+        final int b0 = bytes[offset] & 0xFF;
+        final int b1 = bytes[offset + 1] & 0xFF;
+        return bigEndian ? (b0 << 8) | b1 : (b1 << 8) | b0;
+    }
+
+    private static int getInt(final byte[] bytes, final int offset, final boolean bigEndian) {
+        final int high = getShort(bytes, offset, bigEndian);
+        final int low = getShort(bytes, offset + 2, bigEndian);
+        return bigEndian ? (high << 16) | low : (low << 16) | high;
+    }
+
+    /**
+     * Reads from a stream without ever consuming more than a fixed number of bytes.
+     */
+    private static final class Reader {
+        private final InputStream stream;
+        private int remaining;
+
+        Reader(final InputStream stream, final int limit) {
+            this.stream = stream;
+            this.remaining = limit;
+        }
+
+        int readByte() throws IOException {
+            if (remaining <= 0) {
+                throw new EOFException();
+            }
+            final int result = stream.read();
+            if (result == -1) {
+                throw new EOFException();
+            }
+            remaining--;
+            return result;
+        }
+
+        int readShort(final boolean bigEndian) throws IOException {
+            final int b0 = readByte();
+            final int b1 = readByte();
+            return bigEndian ? (b0 << 8) | b1 : (b1 << 8) | b0;
+        }
+
+        int readUInt24() throws IOException {
+            final int b0 = readByte();
+            final int b1 = readByte();
+            final int b2 = readByte();
+            return (b2 << 16) | (b1 << 8) | b0;
+        }
+
+        int readInt(final boolean bigEndian) throws IOException {
+            final int high = readShort(bigEndian);
+            final int low = readShort(bigEndian);
+            return bigEndian ? (high << 16) | low : (low << 16) | high;
+        }
+
+        boolean readTag(final String tag) throws IOException {
+            for (int i = 0, n = tag.length(); i < n; i++) {
+                if (readByte() != tag.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        byte[] readBytes(final int count) throws IOException {
+            if (count > remaining) {
+                throw new EOFException();
+            }
+            final byte[] bytes = new byte[count];
+            int offset = 0;
+            while (offset < count) {
+                final int read = stream.read(bytes, offset, count - offset);
+                if (read == -1) {
+                    throw new EOFException();
+                }
+                offset += read;
+                remaining -= read;
+            }
+            return bytes;
+        }
+
+        void skip(final int count) throws IOException {
+            if (count > remaining) {
+                throw new EOFException();
+            }
+            int left = count;
+            while (left > 0) {
+                final long skipped = stream.skip(left);
+                if (skipped <= 0) {
+                    // Some streams refuse to skip. Fall back to reading.
+                    readByte();
+                    left--;
+                } else {
+                    left -= skipped;
+                    remaining -= skipped;
+                }
+            }
+        }
+    }
+}
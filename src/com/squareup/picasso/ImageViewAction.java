@@ -25,8 +25,9 @@ class ImageViewAction extends Action<ImageView> {
     Callback callback;
 
     ImageViewAction(final Picasso picasso, final ImageView imageView, final Request data, final boolean skipCache,
-                    final boolean noFade, final int errorResId, final Drawable errorDrawable, final String key, final Callback callback) {
-        super(picasso, imageView, data, skipCache, noFade, errorResId, errorDrawable, key);
+                    final boolean noFade, final int errorResId, final Drawable errorDrawable, final RequestKey key,
+                    final Picasso.Priority priority, final Object tag, final Callback callback) {
+        super(picasso, imageView, data, skipCache, noFade, errorResId, errorDrawable, key, priority, tag);
         this.callback = callback;
     }
 
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in milliseconds with fixed power-of-two buckets. Bucket
+ * {@code 0} holds durations under a millisecond and bucket {@code i} holds durations in
+ * {@code [2^(i-1), 2^i)}. The last bucket holds everything from about a minute upwards.
+ * <p/>
+ * Percentiles are reported as the upper bound of the bucket they fall in, capped at the largest
+ * recorded value, so they are never more than twice the true value.
+ */
+final class LatencyHistogram {
+    static final int BUCKET_COUNT = 18;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    void record(final long millis) {
+        final long value = millis < 0 ? 0 : millis;
+        buckets.incrementAndGet(bucketFor(value));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    StatsSnapshot.Latency snapshot() {
+        final long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        final long maxValue = max.get();
+        return new StatsSnapshot.Latency(count, percentile(counts, count, maxValue, 0.50),
+                percentile(counts, count, maxValue, 0.90), percentile(counts, count, maxValue, 0.99),
+                maxValue);
+    }
+
+    static int bucketFor(final long millis) {
+        if (millis <= 0) {
+            return 0;
+        }
+        final int bucket = 64 - Long.numberOfLeadingZeros(millis);
+        return bucket < BUCKET_COUNT ? bucket : BUCKET_COUNT - 1;
+    }
+
+    private static long percentile(final long[] counts, final long count, final long maxValue,
+                                   final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                final long upperBound = i == 0 ? 0 : (1L << i) - 1;
+                return Math.min(upperBound, maxValue);
+            }
+        }
+        return maxValue;
+    }
+}
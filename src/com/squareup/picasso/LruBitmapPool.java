@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.graphics.Bitmap;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * A {@link BitmapPool} keyed by size and config which drops the least-recently pooled bitmap
+ * when full.
+ */
+public class LruBitmapPool implements BitmapPool {
+    private final Map<Key, LinkedList<Bitmap>> groups;
+    private final LinkedList<Bitmap> order;
+    private final Key lookupKey;
+    private final int maxSize;
+
+    private int size;
+
+    /**
+     * Create a pool with a given maximum size in bytes.
+     */
+    public LruBitmapPool(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.groups = new HashMap<Key, LinkedList<Bitmap>>();
+        this.order = new LinkedList<Bitmap>();
+        this.lookupKey = new Key();
+    }
+
+    @Override
+    public synchronized Bitmap get(final int width, final int height, final Bitmap.Config config) {
+        lookupKey.set(width, height, config);
+        final LinkedList<Bitmap> group = groups.get(lookupKey);
+        if (group == null || group.isEmpty()) {
+            return null;
+        }
+        final Bitmap bitmap = group.removeLast();
+        order.remove(bitmap);
+        size -= Utils.getBitmapBytes(bitmap);
+        return bitmap;
+    }
+
+    @Override
+    public synchronized void put(final Bitmap bitmap) {
+        if (bitmap == null) {
+            throw new NullPointerException("bitmap == null");
+        }
+        if (bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        final int bytes = Utils.getBitmapBytes(bitmap);
+        if (bytes > maxSize) {
+            return;
+        }
+        final Key key = new Key();
+        key.set(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+        LinkedList<Bitmap> group = groups.get(key);
+        if (group == null) {
+            group = new LinkedList<Bitmap>();
+            groups.put(key, group);
+        }
+        group.addLast(bitmap);
+        order.addLast(bitmap);
+        size += bytes;
+        trimToSize(maxSize);
+    }
+
+    private void trimToSize(final int maxSize) {
+        while (size > maxSize && !order.isEmpty()) {
+            final Bitmap eldest = order.removeFirst();
+            lookupKey.set(eldest.getWidth(), eldest.getHeight(), eldest.getConfig());
+            groups.get(lookupKey).remove(eldest);
+            size -= Utils.getBitmapBytes(eldest);
+        }
+    }
+
+    @Override
+    public final synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public final int maxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public final synchronized void clear() {
+        groups.clear();
+        order.clear();
+        size = 0;
+    }
+
+    private static final class Key {
+        int width;
+        int height;
+        Bitmap.Config config;
+
+        void set(final int width, final int height, final Bitmap.Config config) {
+            this.width = width;
+            this.height = height;
+            this.config = config;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return width == other.width && height == other.height && config == other.config;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + (config != null ? config.hashCode() : 0);
+            return result;
+        }
+    }
+}
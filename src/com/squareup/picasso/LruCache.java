@@ -25,7 +25,7 @@ import java.util.Map;
  * A memory cache which uses a least-recently used eviction policy.
  */
 public class LruCache implements Cache {
-    final LinkedHashMap<String, Bitmap> map;
+    final LinkedHashMap<RequestKey, Bitmap> map;
     private final int maxSize;
 
     private int size;
@@ -34,6 +34,11 @@ public class LruCache implements Cache {
     private int hitCount;
     private int missCount;
 
+    /**
+     * Receives evicted bitmaps for reuse by the decoder. Wired by {@link Picasso.Builder}.
+     */
+    BitmapPool evictionPool = BitmapPool.NONE;
+
     /**
      * Create a cache using an appropriate portion of the available RAM as the maximum size.
      */
@@ -49,11 +54,11 @@ public class LruCache implements Cache {
             throw new IllegalArgumentException("Max size must be positive.");
         }
         this.maxSize = maxSize;
-        this.map = new LinkedHashMap<String, Bitmap>(0, 0.75f, true);
+        this.map = new LinkedHashMap<RequestKey, Bitmap>(0, 0.75f, true);
     }
 
     @Override
-    public Bitmap get(final String key) {
+    public Bitmap get(final RequestKey key) {
         if (key == null) {
             throw new NullPointerException("key == null");
         }
@@ -72,7 +77,7 @@ public class LruCache implements Cache {
     }
 
     @Override
-    public void set(final String key, final Bitmap bitmap) {
+    public void set(final RequestKey key, final Bitmap bitmap) {
         if (key == null || bitmap == null) {
             throw new NullPointerException("key == null || bitmap == null");
         }
@@ -92,7 +97,7 @@ public class LruCache implements Cache {
 
     private void trimToSize(final int maxSize) {
         while (true) {
-            final String key;
+            final RequestKey key;
             final Bitmap value;
             synchronized (this) {
                 if (size < 0 || (map.isEmpty() && size != 0)) {
@@ -104,13 +109,15 @@ public class LruCache implements Cache {
                     break;
                 }
 
-                final Map.Entry<String, Bitmap> toEvict = map.entrySet().iterator().next();
+                final Map.Entry<RequestKey, Bitmap> toEvict = map.entrySet().iterator().next();
                 key = toEvict.getKey();
                 value = toEvict.getValue();
                 map.remove(key);
                 size -= Utils.getBitmapBytes(value);
                 evictionCount++;
             }
+
+            evictionPool.put(value);
         }
     }
 
@@ -154,7 +161,7 @@ public class LruCache implements Cache {
     }
 
     /**
-     * Returns the number of times {@link #set(String, Bitmap)} was called.
+     * Returns the number of times {@link #set(RequestKey, Bitmap)} was called.
      */
     public final synchronized int putCount() {
         return putCount;
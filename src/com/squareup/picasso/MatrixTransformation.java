@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.graphics.Matrix;
+
+/**
+ * A transformation which is a pure change of geometry, such as a scale, rotation or flip.
+ * <p/>
+ * Consecutive matrix transformations, the built-in resize and rotation before them and a
+ * {@link CanvasTransformation} right after them are drawn in a single pass onto one new bitmap,
+ * instead of each creating and recycling its own. {@link #transform(android.graphics.Bitmap)} is
+ * only called by code other than Picasso's.
+ */
+public interface MatrixTransformation extends Transformation {
+    /**
+     * Append this transformation to {@code matrix}, for example with
+     * {@link Matrix#postRotate(float)}. The input is {@code width} by {@code height} pixels. The
+     * output is the bounds of the mapped input, moved to the origin, the same as
+     * {@link android.graphics.Bitmap#createBitmap(android.graphics.Bitmap, int, int, int, int, Matrix,
+     * boolean) Bitmap.createBitmap()} would produce with the appended matrix.
+     */
+    void concat(Matrix matrix, int width, int height);
+}
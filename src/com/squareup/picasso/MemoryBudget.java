@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+/**
+ * Admission control for bitmap work which is bounded by the number of pixel bytes in flight rather
+ * than by a single lock. Callers reserve their estimated bytes with {@link #acquire(long)} and
+ * only block while the reservation would exceed the budget.
+ * <p/>
+ * A reservation larger than the whole budget is admitted once nothing else is in flight so that
+ * oversized images make progress instead of waiting forever.
+ */
+final class MemoryBudget {
+    private final long maxBytes;
+
+    private long bytesInFlight;
+
+    MemoryBudget(final long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive.");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Reserve {@code bytes} of the budget, blocking until they fit.
+     *
+     * @return The time in milliseconds spent waiting for the reservation.
+     */
+    synchronized long acquire(final long bytes) throws InterruptedException {
+        long waitStart = 0;
+        while (bytesInFlight > 0 && bytesInFlight + bytes > maxBytes) {
+            if (waitStart == 0) {
+                waitStart = System.currentTimeMillis();
+            }
+            wait();
+        }
+        bytesInFlight += bytes;
+        return waitStart == 0 ? 0 : System.currentTimeMillis() - waitStart;
+    }
+
+    /**
+     * Return {@code bytes} previously reserved with {@link #acquire(long)}.
+     */
+    synchronized void release(final long bytes) {
+        bytesInFlight -= bytes;
+        notifyAll();
+    }
+
+    synchronized long bytesInFlight() {
+        return bytesInFlight;
+    }
+
+    long maxBytes() {
+        return maxBytes;
+    }
+}
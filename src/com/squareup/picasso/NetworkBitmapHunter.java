@@ -18,51 +18,229 @@ package com.squareup.picasso;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.NetworkInfo;
+import android.os.SystemClock;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 
 import static com.squareup.picasso.Downloader.Response;
 import static com.squareup.picasso.Picasso.LoadedFrom.DISK;
 import static com.squareup.picasso.Picasso.LoadedFrom.NETWORK;
 
 class NetworkBitmapHunter extends BitmapHunter {
-    static final int DEFAULT_RETRY_COUNT = 2;
-    private static final int MARKER = 65536;
+    private static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFER_BYTES = 4 * 1024 * 1024; // 4MB
+    static final int MAX_FETCHED_BYTES = 4 * 1024 * 1024; // 4MB
+
+    /**
+     * Buffers for fetched images, shared by all hunts.
+     */
+    private static final ByteArrayPool BUFFER_POOL = new ByteArrayPool(MAX_POOLED_BUFFER_BYTES);
 
     private final Downloader downloader;
 
+    /**
+     * Bounds the fetched bytes of this Picasso instance waiting for or in decode. Fetches block on it
+     * once the decoders fall behind, so downloads never run further ahead than the memory we are
+     * willing to buffer.
+     */
+    private final MemoryBudget fetchBudget;
+
     int retryCount;
 
+    // The result of the last fetch. Written by the fetching thread and handed over through the
+    // dispatcher. The body is guarded by this hunter since it may be released by a cancel.
+    private Bitmap loadedBitmap;
+    private byte[] body;
+    private int bodyLength;
+    private int budgetedLength; // The part of the body acquired from the fetch budget.
+
     public NetworkBitmapHunter(final Picasso picasso, final Dispatcher dispatcher, final Cache cache, final Stats stats,
                                final Action action, final Downloader downloader) {
         super(picasso, dispatcher, cache, stats, action);
         this.downloader = downloader;
-        this.retryCount = DEFAULT_RETRY_COUNT;
+        this.fetchBudget = picasso.fetchBudget;
+        this.retryCount = dispatcher.retryPolicy.maxRetries;
+    }
+
+    @Override
+    boolean fetch() throws IOException {
+        // When the local executor is the network one, the decode which would release the budget
+        // queues behind the fetches waiting on it. Decode on this thread instead of handing off.
+        final boolean handOff = dispatcher.localService != dispatcher.service;
+        load(handOff);
+        synchronized (this) {
+            return handOff && body != null;
+        }
     }
 
     @Override
     Bitmap decode(final Request data) throws IOException {
-        final boolean loadFromLocalCacheOnly = retryCount == 0;
+        final Bitmap bitmap = loadedBitmap;
+        if (bitmap != null) {
+            loadedBitmap = null;
+            return bitmap;
+        }
 
-        final Response response = downloader.load(data.uri, loadFromLocalCacheOnly);
-        if (response == null) {
+        final byte[] bytes;
+        final int length;
+        final int budgeted;
+        synchronized (this) {
+            bytes = body;
+            length = bodyLength;
+            budgeted = budgetedLength;
+            body = null;
+            budgetedLength = 0;
+        }
+        if (bytes == null) {
             return null;
         }
+        try {
+            return decodeBytes(bytes, length, data);
+        } finally {
+            BUFFER_POOL.put(bytes);
+            fetchBudget.release(budgeted);
+        }
+    }
+
+    @Override
+    boolean warm() throws IOException {
+        final long downloadStart = SystemClock.uptimeMillis();
+        final Response response = downloader.load(data.uri, localCacheOnly);
+        final long timeToFirstByte = recordDownload(downloadStart);
+        if (response == null) {
+            return false;
+        }
+
+        loadedFrom = response.cached ? DISK : NETWORK;
+
+        final InputStream is = response.getInputStream();
+        if (response.cached || is == null) {
+            Utils.closeQuietly(is);
+            return response.cached || response.getBitmap() != null;
+        }
+        final long readStart = SystemClock.uptimeMillis();
+        final byte[] buffer = BUFFER_POOL.get(DEFAULT_BUFFER_SIZE);
+        long count = 0;
+        try {
+            // The downloader stores the body in its cache as it is read to the end.
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                count += read;
+            }
+        } finally {
+            BUFFER_POOL.put(buffer);
+            Utils.closeQuietly(is);
+        }
+        recordDownload(readStart);
+        networkBytes = count;
+        networkTime = SystemClock.uptimeMillis() - downloadStart;
+        this.timeToFirstByte = timeToFirstByte;
+        return true;
+    }
+
+    @Override
+    synchronized void releaseFetched() {
+        if (body != null) {
+            BUFFER_POOL.put(body);
+            fetchBudget.release(budgetedLength);
+            body = null;
+            budgetedLength = 0;
+        }
+    }
+
+    /**
+     * Download the response and read its body into memory. A body which is handed off to another
+     * thread for decoding first waits for room in the fetch budget.
+     */
+    private void load(final boolean handOff) throws IOException {
+        final long downloadStart = SystemClock.uptimeMillis();
+        final Response response = downloader.load(data.uri, localCacheOnly);
+        final long timeToFirstByte = recordDownload(downloadStart);
+        if (response == null) {
+            return;
+        }
 
         loadedFrom = response.cached ? DISK : NETWORK;
 
         final Bitmap result = response.getBitmap();
         if (result != null) {
-            return result;
+            loadedBitmap = result;
+            return;
         }
 
         final InputStream is = response.getInputStream();
+        if (is == null) {
+            return;
+        }
+        final long readStart = SystemClock.uptimeMillis();
+        // Read straight into a pooled buffer sized by the content length when we have one.
+        final long contentLength = response.getContentLength();
+        final int initialSize = contentLength > 0 && contentLength <= Integer.MAX_VALUE
+                ? (int) contentLength : DEFAULT_BUFFER_SIZE;
+        byte[] bytes = BUFFER_POOL.get(initialSize);
+        int count = 0;
+        boolean loaded = false;
         try {
-            return decodeStream(is, data);
+            while (true) {
+                if (count == bytes.length) {
+                    // Only grow when the stream really has more data.
+                    final int next = is.read();
+                    if (next == -1) {
+                        break;
+                    }
+                    final byte[] larger = BUFFER_POOL.get(bytes.length * 2);
+                    System.arraycopy(bytes, 0, larger, 0, count);
+                    BUFFER_POOL.put(bytes);
+                    bytes = larger;
+                    bytes[count++] = (byte) next;
+                }
+                final int read = is.read(bytes, count, bytes.length - count);
+                if (read == -1) {
+                    break;
+                }
+                count += read;
+            }
+            recordDownload(readStart);
+            if (!response.cached) {
+                // Measure what really came over the network so the executor can size itself to it.
+                networkBytes = count;
+                networkTime = SystemClock.uptimeMillis() - downloadStart;
+                this.timeToFirstByte = timeToFirstByte;
+            }
+
+            if (handOff) {
+                fetchBudget.acquire(count);
+            }
+            loaded = true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a decoder.");
         } finally {
+            if (!loaded) {
+                // Whatever went wrong, including a runtime exception from the stream, the buffer
+                // goes back to the pool.
+                BUFFER_POOL.put(bytes);
+            }
             Utils.closeQuietly(is);
         }
+
+        synchronized (this) {
+            body = bytes;
+            bodyLength = count;
+            budgetedLength = handOff ? count : 0;
+        }
+    }
+
+    /**
+     * Record the time spent waiting on the network since {@code start}.
+     */
+    private long recordDownload(final long start) {
+        final long elapsed = SystemClock.uptimeMillis() - start;
+        downloadTime += elapsed;
+        stats.dispatchDownloadFinished(elapsed);
+        return elapsed;
     }
 
     @Override
@@ -72,43 +250,33 @@ class NetworkBitmapHunter extends BitmapHunter {
             return false;
         }
         retryCount--;
-        return info == null || info.isConnectedOrConnecting();
+        return true;
     }
 
-    private Bitmap decodeStream(InputStream stream, final Request data) throws IOException {
-        if (stream == null) {
-            return null;
-        }
-        final MarkableInputStream markStream = new MarkableInputStream(stream);
-        stream = markStream;
-
-        final long mark = markStream.savePosition(MARKER);
-
-        final boolean isWebPFile = Utils.isWebPFile(stream);
-        markStream.reset(mark);
-        // When decode WebP network stream, BitmapFactory throw JNI Exception and make app crash.
-        // Decode byte array instead
-        if (isWebPFile) {
-            final byte[] bytes = Utils.toByteArray(stream);
-            final BitmapFactory.Options options = createBitmapOptions(data);
-            if (data.hasSize()) {
-                options.inJustDecodeBounds = true;
-
-                BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
-                calculateInSampleSize(data.targetWidth, data.targetHeight, options);
-            }
-            return BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
-        } else {
-            final BitmapFactory.Options options = createBitmapOptions(data);
-            if (data.hasSize()) {
-                options.inJustDecodeBounds = true;
+    @Override
+    boolean needsNetwork() {
+        return true;
+    }
 
-                BitmapFactory.decodeStream(stream, null, options);
-                calculateInSampleSize(data.targetWidth, data.targetHeight, options);
+    private Bitmap decodeBytes(final byte[] bytes, final int length, final Request data) {
+        final BitmapFactory.Options options = createBitmapOptions(data);
+        if (data.hasSize()) {
+            options.inJustDecodeBounds = true;
 
-                markStream.reset(mark);
+            BitmapFactory.decodeByteArray(bytes, 0, length, options);
+            calculateInSampleSize(data, options);
+            reuseBitmap(options);
+        }
+        try {
+            return BitmapFactory.decodeByteArray(bytes, 0, length, options);
+        } catch (final IllegalArgumentException e) {
+            if (!reusedBitmap) {
+                throw e;
             }
-            return BitmapFactory.decodeStream(stream, null, options);
+            // The decoder rejected the pooled bitmap. The body is gone after this call, so decode
+            // once more into a fresh allocation right here.
+            options.inBitmap = null;
+            return BitmapFactory.decodeByteArray(bytes, 0, length, options);
         }
     }
 }
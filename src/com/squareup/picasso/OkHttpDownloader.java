@@ -118,6 +118,8 @@ public class OkHttpDownloader implements Downloader {
         }
         final boolean fromCache = parseResponseSourceHeader(responseSource);
 
-        return new Response(connection.getInputStream(), fromCache);
+        final long contentLength = connection.getHeaderFieldInt("Content-Length", -1);
+
+        return new Response(connection.getInputStream(), fromCache, contentLength);
     }
 }
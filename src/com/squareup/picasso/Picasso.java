@@ -23,10 +23,12 @@ import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
 import android.os.Process;
+import android.os.SystemClock;
 import android.widget.ImageView;
 
 import java.io.File;
 import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
@@ -35,7 +37,10 @@ import java.util.concurrent.ExecutorService;
 import static android.os.Process.THREAD_PRIORITY_BACKGROUND;
 import static com.squareup.picasso.Action.RequestWeakReference;
 import static com.squareup.picasso.Dispatcher.HUNTER_BATCH_COMPLETE;
+import static com.squareup.picasso.Dispatcher.REQUEST_BATCH_CANCEL;
+import static com.squareup.picasso.Dispatcher.REQUEST_BATCH_RESUME;
 import static com.squareup.picasso.Dispatcher.REQUEST_GCED;
+import static com.squareup.picasso.Picasso.LoadedFrom.MEMORY;
 import static com.squareup.picasso.Utils.THREAD_PREFIX;
 
 /**
@@ -92,16 +97,35 @@ public class Picasso {
             switch (msg.what) {
                 case HUNTER_BATCH_COMPLETE: {
                     @SuppressWarnings("unchecked") final List<BitmapHunter> batch = (List<BitmapHunter>) msg.obj;
-                    //noinspection ForLoopReplaceableByForEach
-                    for (int i = 0, n = batch.size(); i < n; i++) {
-                        final BitmapHunter hunter = batch.get(i);
-                        hunter.picasso.complete(hunter);
+                    if (!batch.isEmpty()) {
+                        // A dispatcher only batches the hunters of its own instance.
+                        batch.get(0).picasso.deliver(batch);
                     }
                     break;
                 }
                 case REQUEST_GCED: {
                     final Action action = (Action) msg.obj;
-                    action.picasso.cancelExistingRequest(action.getTarget());
+                    action.picasso.cancelGarbageCollectedAction(action);
+                    break;
+                }
+                case REQUEST_BATCH_RESUME: {
+                    @SuppressWarnings("unchecked") final List<Action> batch = (List<Action>) msg.obj;
+                    //noinspection ForLoopReplaceableByForEach
+                    for (int i = 0, n = batch.size(); i < n; i++) {
+                        final Action action = batch.get(i);
+                        action.picasso.resumeAction(action);
+                    }
+                    break;
+                }
+                case REQUEST_BATCH_CANCEL: {
+                    @SuppressWarnings("unchecked") final List<Action> batch = (List<Action>) msg.obj;
+                    //noinspection ForLoopReplaceableByForEach
+                    for (int i = 0, n = batch.size(); i < n; i++) {
+                        final Action action = batch.get(i);
+                        if (!action.isCancelled()) {
+                            action.cancel();
+                        }
+                    }
                     break;
                 }
                 default:
@@ -119,7 +143,13 @@ public class Picasso {
     final Context context;
     final Dispatcher dispatcher;
     final Cache cache;
+    final BitmapPool bitmapPool;
+    final VariantIndex variantIndex;
+    final MemoryBudget transformBudget;
+    final MemoryBudget fetchBudget;
+    final ResultDiskCache resultDiskCache;
     final Stats stats;
+    final FrameDelivery frameDelivery;
     final Map<Object, Action> targetToAction;
     final Map<ImageView, DeferredRequestCreator> targetToDeferredRequestCreator;
     final ReferenceQueue<Object> referenceQueue;
@@ -127,14 +157,23 @@ public class Picasso {
     boolean debugging;
     boolean shutdown;
 
-    Picasso(final Context context, final Dispatcher dispatcher, final Cache cache, final Listener listener,
-            final RequestTransformer requestTransformer, final Stats stats, final boolean debugging) {
+    Picasso(final Context context, final Dispatcher dispatcher, final Cache cache, final BitmapPool bitmapPool,
+            final VariantIndex variantIndex, final MemoryBudget transformBudget, final MemoryBudget fetchBudget,
+            final ResultDiskCache resultDiskCache, final Listener listener,
+            final RequestTransformer requestTransformer, final Stats stats, final FrameDelivery frameDelivery,
+            final boolean debugging) {
         this.context = context;
         this.dispatcher = dispatcher;
         this.cache = cache;
+        this.bitmapPool = bitmapPool;
+        this.variantIndex = variantIndex;
+        this.transformBudget = transformBudget;
+        this.fetchBudget = fetchBudget;
+        this.resultDiskCache = resultDiskCache;
         this.listener = listener;
         this.requestTransformer = requestTransformer;
         this.stats = stats;
+        this.frameDelivery = frameDelivery;
         this.targetToAction = new WeakHashMap<Object, Action>();
         this.targetToDeferredRequestCreator = new WeakHashMap<ImageView, DeferredRequestCreator>();
         this.debugging = debugging;
@@ -157,6 +196,88 @@ public class Picasso {
         cancelExistingRequest(target);
     }
 
+    /**
+     * Cancel any existing requests with given tag. You can set a tag on new requests with
+     * {@link RequestCreator#tag(Object)}.
+     *
+     * @see RequestCreator#tag(Object)
+     */
+    public void cancelTag(final Object tag) {
+        if (tag == null) {
+            throw new IllegalArgumentException("Cannot cancel requests with null tag.");
+        }
+
+        final List<Action> actions = new ArrayList<Action>(targetToAction.values());
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0, n = actions.size(); i < n; i++) {
+            final Action action = actions.get(i);
+            if (action.getTag().equals(tag)) {
+                cancelExistingRequest(action.getTarget());
+            }
+        }
+
+        final List<DeferredRequestCreator> deferred =
+                new ArrayList<DeferredRequestCreator>(targetToDeferredRequestCreator.values());
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0, n = deferred.size(); i < n; i++) {
+            final DeferredRequestCreator deferredRequestCreator = deferred.get(i);
+            if (tag.equals(deferredRequestCreator.getTag())) {
+                cancelExistingRequest(deferredRequestCreator.getTarget());
+            }
+        }
+
+        // Requests without a target, such as fetches, are only known to the dispatcher.
+        dispatcher.dispatchCancelTag(tag);
+    }
+
+    /**
+     * Pause existing requests with the given tag. Requests which have not started yet are held back
+     * and new requests with the tag are not started until {@link #resumeTag(Object)} is called.
+     * Requests which are already running are allowed to finish.
+     *
+     * @see #resumeTag(Object)
+     * @see RequestCreator#tag(Object)
+     */
+    public void pauseTag(final Object tag) {
+        if (tag == null) {
+            throw new IllegalArgumentException("Cannot pause requests with null tag.");
+        }
+        dispatcher.dispatchPauseTag(tag);
+    }
+
+    /**
+     * Resume paused requests with the given tag. Requests held back while the tag was paused are
+     * resubmitted together.
+     *
+     * @see #pauseTag(Object)
+     * @see RequestCreator#tag(Object)
+     */
+    public void resumeTag(final Object tag) {
+        if (tag == null) {
+            throw new IllegalArgumentException("Cannot resume requests with null tag.");
+        }
+        dispatcher.dispatchResumeTag(tag);
+    }
+
+    /**
+     * Load a batch of images ahead of time, for example the next page of a feed. At most
+     * {@link PrefetchOptions.Builder#maxConcurrent(int) a few} of them are in flight at once, at
+     * {@link Priority#LOW low} priority. Must be called from the main thread.
+     *
+     * @return A handle to follow the progress of the batch and to cancel it.
+     */
+    public Prefetch prefetch(final List<Request> requests, final PrefetchOptions options) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Requests must not be null.");
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("Prefetch options must not be null.");
+        }
+        final Prefetch prefetch = new Prefetch(this, requests, options);
+        prefetch.start();
+        return prefetch;
+    }
+
     /**
      * Start an image request using the specified URI.
      * <p/>
@@ -263,9 +384,13 @@ public class Picasso {
             return;
         }
         cache.clear();
+        variantIndex.clear();
+        bitmapPool.clear();
         cleanupThread.shutdown();
-        stats.shutdown();
         dispatcher.shutdown();
+        if (frameDelivery != null) {
+            frameDelivery.clear();
+        }
         for (final DeferredRequestCreator deferredRequestCreator : targetToDeferredRequestCreator.values()) {
             deferredRequestCreator.cancel();
         }
@@ -290,18 +415,40 @@ public class Picasso {
 
     void enqueueAndSubmit(final Action action) {
         final Object target = action.getTarget();
-        if (target != null) {
+        if (target != null && targetToAction.get(target) != action) {
             cancelExistingRequest(target);
             targetToAction.put(target, action);
         }
         submit(action);
     }
 
+    void resumeAction(final Action action) {
+        if (action.isCancelled()) {
+            return;
+        }
+        Bitmap bitmap = null;
+        if (!action.skipCache) {
+            bitmap = quickMemoryCacheCheck(action.getKey());
+        }
+        if (bitmap != null) {
+            targetToAction.remove(action.getTarget());
+            action.complete(bitmap, MEMORY);
+        } else {
+            enqueueAndSubmit(action);
+        }
+    }
+
+    void cancelGarbageCollectedAction(final Action action) {
+        // The target is gone, so drop the action wherever the dispatcher is holding it.
+        action.cancel();
+        dispatcher.dispatchCancel(action);
+    }
+
     void submit(final Action action) {
         dispatcher.dispatchSubmit(action);
     }
 
-    Bitmap quickMemoryCacheCheck(final String key) {
+    Bitmap quickMemoryCacheCheck(final RequestKey key) {
         final Bitmap cached = cache.get(key);
         if (cached != null) {
             stats.dispatchCacheHit();
@@ -311,6 +458,17 @@ public class Picasso {
         return cached;
     }
 
+    void deliver(final List<BitmapHunter> batch) {
+        if (frameDelivery != null) {
+            frameDelivery.deliver(batch);
+            return;
+        }
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            complete(batch.get(i));
+        }
+    }
+
     void complete(final BitmapHunter hunter) {
         final List<Action> joined = hunter.getActions();
         if (joined.isEmpty()) {
@@ -321,6 +479,9 @@ public class Picasso {
         final Exception exception = hunter.getException();
         final Bitmap result = hunter.getResult();
         final LoadedFrom from = hunter.getLoadedFrom();
+        if (result != null) {
+            stats.dispatchDelivered(SystemClock.uptimeMillis() - hunter.completeTime);
+        }
 
         //noinspection ForLoopReplaceableByForEach
         for (int i = 0, n = joined.size(); i < n; i++) {
@@ -334,6 +495,9 @@ public class Picasso {
                     throw new AssertionError("LoadedFrom cannot be null.");
                 }
                 join.complete(result, from);
+            } else if (hunter.warmed) {
+                // Only prefetch actions warm the disk cache. They expect no bitmap.
+                join.complete(null, from);
             } else {
                 join.error();
             }
@@ -403,7 +567,7 @@ public class Picasso {
      * This instance is automatically initialized with defaults that are suitable to most
      * implementations.
      * <ul>
-     * <li>LRU memory cache of 15% the available application RAM</li>
+     * <li>Segmented LRU memory cache of 15% the available application RAM</li>
      * <li>Disk cache of 2% storage space up to 50MB but no less than 5MB. (Note: this is only
      * available on API 14+ <em>or</em> if you are using a standalone library that provides a disk
      * cache on all API levels like OkHttp)</li>
@@ -427,10 +591,17 @@ public class Picasso {
     public static class Builder {
         private final Context context;
         private Downloader downloader;
+        private RetryPolicy retryPolicy;
         private ExecutorService service;
+        private ExecutorService localService;
         private Cache cache;
+        private BitmapPool bitmapPool;
+        private long transformMemoryBudget;
+        private ResultDiskCache resultDiskCache;
         private Listener listener;
         private RequestTransformer transformer;
+        private boolean adaptiveThreadCount;
+        private int maxCompletionsPerFrame;
         private boolean debugging;
 
         /**
@@ -458,7 +629,23 @@ public class Picasso {
         }
 
         /**
-         * Specify the executor service for loading images in the background.
+         * Specify how failed network requests are retried. Defaults to {@link RetryPolicy#DEFAULT}.
+         */
+        public Builder retryPolicy(final RetryPolicy retryPolicy) {
+            if (retryPolicy == null) {
+                throw new IllegalArgumentException("Retry policy must not be null.");
+            }
+            if (this.retryPolicy != null) {
+                throw new IllegalStateException("Retry policy already set.");
+            }
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Specify the executor service for loading images in the background. Unless a
+         * {@link #localExecutor(ExecutorService) local executor} is also given, it loads images from
+         * every source.
          */
         public Builder executor(final ExecutorService executorService) {
             if (executorService == null) {
@@ -471,6 +658,21 @@ public class Picasso {
             return this;
         }
 
+        /**
+         * Specify the executor service for loading images from sources on the device, so that they
+         * do not queue behind network downloads.
+         */
+        public Builder localExecutor(final ExecutorService executorService) {
+            if (executorService == null) {
+                throw new IllegalArgumentException("Local executor service must not be null.");
+            }
+            if (this.localService != null) {
+                throw new IllegalStateException("Local executor service already set.");
+            }
+            this.localService = executorService;
+            return this;
+        }
+
         /**
          * Specify the memory cache used for the most recent images.
          */
@@ -485,6 +687,59 @@ public class Picasso {
             return this;
         }
 
+        /**
+         * Specify a pool of bitmaps to decode into instead of allocating new ones. Bitmaps evicted
+         * from the default memory cache and intermediate bitmaps replaced by the built-in
+         * transformations are returned to this pool.
+         * <p/>
+         * <em>Note:</em> An evicted bitmap may be overwritten by a later decode, so only use a pool
+         * when your targets do not hold on to images after they leave the memory cache. Pooling
+         * only takes effect on API 19 and newer.
+         */
+        public Builder bitmapPool(final BitmapPool bitmapPool) {
+            if (bitmapPool == null) {
+                throw new IllegalArgumentException("Bitmap pool must not be null.");
+            }
+            if (this.bitmapPool != null) {
+                throw new IllegalStateException("Bitmap pool already set.");
+            }
+            this.bitmapPool = bitmapPool;
+            return this;
+        }
+
+        /**
+         * Specify a disk cache for final, transformed images. It is consulted after a memory cache
+         * miss and before decoding, so resized and transformed images survive a restart without
+         * being decoded and transformed again. Images loaded from it are reported as
+         * {@link LoadedFrom#RESULT_DISK}.
+         */
+        public Builder resultDiskCache(final ResultDiskCache resultDiskCache) {
+            if (resultDiskCache == null) {
+                throw new IllegalArgumentException("Result disk cache must not be null.");
+            }
+            if (this.resultDiskCache != null) {
+                throw new IllegalStateException("Result disk cache already set.");
+            }
+            this.resultDiskCache = resultDiskCache;
+            return this;
+        }
+
+        /**
+         * Specify how many bytes of pixels may be held by concurrent transformations. Transformations
+         * run in parallel on the executor threads and only queue once their combined input and
+         * output sizes would exceed this budget. Defaults to an eighth of the maximum heap.
+         */
+        public Builder transformMemoryBudget(final long bytes) {
+            if (bytes <= 0) {
+                throw new IllegalArgumentException("Transform memory budget must be positive.");
+            }
+            if (this.transformMemoryBudget != 0) {
+                throw new IllegalStateException("Transform memory budget already set.");
+            }
+            this.transformMemoryBudget = bytes;
+            return this;
+        }
+
         /**
          * Specify a listener for interesting events.
          */
@@ -516,6 +771,31 @@ public class Picasso {
             return this;
         }
 
+        /**
+         * Whether the default executor tunes its thread count to the measured network throughput.
+         * Ignored when a custom executor is set.
+         */
+        public Builder adaptiveThreadCount(final boolean adaptiveThreadCount) {
+            this.adaptiveThreadCount = adaptiveThreadCount;
+            return this;
+        }
+
+        /**
+         * Deliver results on the next display frame instead of in batches every 200ms. Each frame
+         * completes at most {@code maxCompletionsPerFrame} requests and leaves the rest to the
+         * frames after it, so that large batches do not drop frames.
+         */
+        public Builder frameDelivery(final int maxCompletionsPerFrame) {
+            if (maxCompletionsPerFrame <= 0) {
+                throw new IllegalArgumentException("Max completions per frame must be positive.");
+            }
+            if (this.maxCompletionsPerFrame != 0) {
+                throw new IllegalStateException("Frame delivery already set.");
+            }
+            this.maxCompletionsPerFrame = maxCompletionsPerFrame;
+            return this;
+        }
+
         /**
          * Whether debugging is enabled or not.
          */
@@ -534,29 +814,70 @@ public class Picasso {
                 downloader = Utils.createDefaultDownloader(context);
             }
             if (cache == null) {
-                cache = new LruCache(context);
+                cache = new SegmentedLruCache(context);
+            }
+            if (bitmapPool == null) {
+                bitmapPool = BitmapPool.NONE;
+            }
+            if (cache instanceof SegmentedLruCache) {
+                ((SegmentedLruCache) cache).evictionPool = bitmapPool;
+            } else if (cache instanceof LruCache) {
+                ((LruCache) cache).evictionPool = bitmapPool;
+            }
+            if (transformMemoryBudget == 0) {
+                transformMemoryBudget = Utils.calculateTransformMemoryBudget();
+            }
+            if (localService == null) {
+                // A custom executor used to run every hunter, so keep it that way.
+                localService = service != null ? service
+                        : new PicassoExecutorService(Runtime.getRuntime().availableProcessors(), false);
             }
             if (service == null) {
-                service = new PicassoExecutorService();
+                service = new PicassoExecutorService(adaptiveThreadCount);
             }
             if (transformer == null) {
                 transformer = RequestTransformer.IDENTITY;
             }
+            if (retryPolicy == null) {
+                retryPolicy = RetryPolicy.DEFAULT;
+            }
 
-            final Stats stats = new Stats(cache);
+            final Stats stats = new Stats(cache, service, localService);
 
-            final Dispatcher dispatcher = new Dispatcher(context, service, HANDLER, downloader, cache, stats);
+            final VariantIndex variantIndex = new VariantIndex();
 
-            return new Picasso(context, dispatcher, cache, listener, transformer, stats, debugging);
+            final FrameDelivery frameDelivery = maxCompletionsPerFrame > 0
+                    ? new FrameDelivery(FrameDelivery.createClock(HANDLER), maxCompletionsPerFrame) : null;
+            // Frame delivery paces the main thread itself, so hand every result over right away.
+            final long batchDelay = frameDelivery != null ? 0 : Dispatcher.BATCH_DELAY;
+
+            final Dispatcher dispatcher = new Dispatcher(context, service, localService, HANDLER, downloader, cache,
+                    variantIndex, retryPolicy, batchDelay, stats);
+
+            final MemoryBudget transformBudget = new MemoryBudget(transformMemoryBudget);
+            final MemoryBudget fetchBudget = new MemoryBudget(NetworkBitmapHunter.MAX_FETCHED_BYTES);
+
+            return new Picasso(context, dispatcher, cache, bitmapPool, variantIndex, transformBudget, fetchBudget,
+                    resultDiskCache, listener, transformer, stats, frameDelivery, debugging);
         }
     }
 
+    /**
+     * The priority of a request. Queued requests with a higher priority are started first.
+     */
+    public enum Priority {
+        LOW,
+        NORMAL,
+        HIGH
+    }
+
     /**
      * Describes where the image was loaded from.
      */
     public enum LoadedFrom {
         MEMORY(Color.GREEN),
         DISK(Color.YELLOW),
+        RESULT_DISK(Color.BLUE),
         NETWORK(Color.RED);
 
         final int debugColor;
@@ -17,27 +17,182 @@ package com.squareup.picasso;
 
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
+import android.os.SystemClock;
 import android.telephony.TelephonyManager;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The default {@link java.util.concurrent.ExecutorService} used for new {@link Picasso} instances.
  * <p/>
  * Exists as a custom type so that we can differentiate the use of defaults versus a user-supplied
- * instance.
+ * instance. Queued hunters are started in order of their {@link Picasso.Priority priority}, and in
+ * submission order among equal priorities.
+ * <p/>
+ * Picasso runs two of these: one for hunters which decode local sources, sized to the number of
+ * processors, and one for network hunters, sized to the connection. The network thread count
+ * starts from a table keyed by the connection type. In adaptive mode it then climbs toward the
+ * count which moves the most bytes per second: every window of completed downloads taken while
+ * hunters were queued, the count takes a step and keeps going while the throughput improves, or
+ * turns around when it drops.
  */
 class PicassoExecutorService extends ThreadPoolExecutor {
     private static final int DEFAULT_THREAD_COUNT = 3;
+    private static final int MIN_THREAD_COUNT = 1;
+    private static final int MAX_THREAD_COUNT = 8;
+    private static final long SAMPLE_WINDOW = 2000; // ms
+    private static final int MIN_SAMPLES = 4;
+    private static final float SIGNIFICANT_CHANGE = 0.1f;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final boolean adaptive;
+
+    // Measurement state. Only touched from the dispatcher thread.
+    private long windowStart;
+    private long windowBytes;
+    private long windowTimeToFirstByte;
+    private long windowTransferTime;
+    private int windowSamples;
+    private boolean windowSaturated;
+    private long lastThroughput;
+    private int direction;
+
+    private volatile long measuredBandwidth;
+    private volatile long measuredTimeToFirstByte;
 
     PicassoExecutorService() {
-        super(DEFAULT_THREAD_COUNT, DEFAULT_THREAD_COUNT, 0, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<Runnable>(), new Utils.PicassoThreadFactory());
+        this(false);
+    }
+
+    PicassoExecutorService(final boolean adaptive) {
+        this(DEFAULT_THREAD_COUNT, adaptive);
+    }
+
+    PicassoExecutorService(final int threadCount, final boolean adaptive) {
+        super(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), new Utils.PicassoThreadFactory());
+        this.adaptive = adaptive;
+    }
+
+    @Override
+    public Future<?> submit(final Runnable task) {
+        if (!(task instanceof BitmapHunter)) {
+            throw new IllegalArgumentException("Only hunters may be submitted: " + task);
+        }
+        final PicassoFutureTask ftask = new PicassoFutureTask((BitmapHunter) task, sequence.getAndIncrement());
+        execute(ftask);
+        return ftask;
+    }
+
+    /**
+     * Re-sort a queued hunter whose priority was raised by a newly attached action. Hunters which
+     * are already running are left alone.
+     */
+    void reprioritize(final BitmapHunter hunter) {
+        final Future<?> future = hunter.future;
+        if (!(future instanceof PicassoFutureTask) || isShutdown()) {
+            return;
+        }
+        final PicassoFutureTask ftask = (PicassoFutureTask) future;
+        // The queue orders by a snapshot of the priority, so it may only change while dequeued.
+        if (getQueue().remove(ftask)) {
+            ftask.priority = hunter.getPriority();
+            execute(ftask);
+        }
+    }
+
+    /**
+     * Account for a completed network download of {@code bytes}, which took
+     * {@code timeToFirstByte} ms until the response arrived and {@code transferTime} ms in total.
+     */
+    void recordDownload(final long bytes, final long timeToFirstByte, final long transferTime) {
+        final long now = SystemClock.uptimeMillis();
+        if (windowSamples == 0) {
+            windowStart = now - transferTime;
+        }
+        windowBytes += bytes;
+        windowTimeToFirstByte += timeToFirstByte;
+        windowTransferTime += transferTime;
+        windowSamples++;
+        if (!getQueue().isEmpty()) {
+            windowSaturated = true;
+        }
+
+        final long windowTime = now - windowStart;
+        if (windowSamples < MIN_SAMPLES || windowTime < SAMPLE_WINDOW) {
+            return;
+        }
+        final long throughput = windowBytes * 1000 / windowTime;
+        final long averageTimeToFirstByte = windowTimeToFirstByte / windowSamples;
+        final long averageTransferTime = windowTransferTime / windowSamples;
+        measuredBandwidth = throughput;
+        measuredTimeToFirstByte = averageTimeToFirstByte;
+        // Without a backlog the throughput only reflects demand, so it says nothing about the size.
+        if (adaptive && windowSaturated) {
+            tune(throughput, averageTimeToFirstByte, averageTransferTime);
+        }
+        resetWindow();
+    }
+
+    private void tune(final long throughput, final long averageTimeToFirstByte,
+                      final long averageTransferTime) {
+        if (direction == 0) {
+            // Downloads which mostly wait for the first byte gain the most from more connections.
+            direction = averageTimeToFirstByte * 2 > averageTransferTime ? 1 : -1;
+        } else if (throughput < lastThroughput * (1 - SIGNIFICANT_CHANGE)) {
+            direction = -direction;
+        } else if (throughput < lastThroughput * (1 + SIGNIFICANT_CHANGE)) {
+            // No clear difference. Stay at this size until the network changes.
+            lastThroughput = throughput;
+            return;
+        }
+        lastThroughput = throughput;
+
+        final int current = getMaximumPoolSize();
+        final int next = Math.max(MIN_THREAD_COUNT, Math.min(MAX_THREAD_COUNT, current + direction));
+        if (next == current) {
+            direction = -direction;
+        } else {
+            setThreadCount(next);
+        }
+    }
+
+    private void resetWindow() {
+        windowBytes = 0;
+        windowTimeToFirstByte = 0;
+        windowTransferTime = 0;
+        windowSamples = 0;
+        windowSaturated = false;
+    }
+
+    int getThreadCount() {
+        return getMaximumPoolSize();
+    }
+
+    /**
+     * Returns the bytes per second received over the last measurement window, or {@code 0}.
+     */
+    long getMeasuredBandwidth() {
+        return measuredBandwidth;
+    }
+
+    /**
+     * Returns the average time to first byte in ms over the last measurement window, or {@code 0}.
+     */
+    long getMeasuredTimeToFirstByte() {
+        return measuredTimeToFirstByte;
     }
 
     void adjustThreadCount(final NetworkInfo info) {
+        // Measurements from the previous network do not apply to this one.
+        resetWindow();
+        lastThroughput = 0;
+        direction = 0;
         if (info == null || !info.isConnectedOrConnecting()) {
             setThreadCount(DEFAULT_THREAD_COUNT);
             return;
@@ -76,7 +231,35 @@ class PicassoExecutorService extends ThreadPoolExecutor {
     }
 
     private void setThreadCount(final int threadCount) {
-        setCorePoolSize(threadCount);
-        setMaximumPoolSize(threadCount);
+        // The core size may never exceed the maximum, even in between the two calls.
+        if (threadCount > getMaximumPoolSize()) {
+            setMaximumPoolSize(threadCount);
+            setCorePoolSize(threadCount);
+        } else {
+            setCorePoolSize(threadCount);
+            setMaximumPoolSize(threadCount);
+        }
+    }
+
+    private static final class PicassoFutureTask extends FutureTask<BitmapHunter>
+            implements Comparable<PicassoFutureTask> {
+        private final long sequence;
+
+        Picasso.Priority priority;
+
+        PicassoFutureTask(final BitmapHunter hunter, final long sequence) {
+            super(hunter, null);
+            this.priority = hunter.getPriority();
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(final PicassoFutureTask other) {
+            // Higher priorities first, then first in first out.
+            if (priority != other.priority) {
+                return other.priority.ordinal() - priority.ordinal();
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
     }
 }
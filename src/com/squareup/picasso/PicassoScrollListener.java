@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.annotation.TargetApi;
+import android.os.SystemClock;
+import android.view.View;
+import android.widget.AbsListView;
+import android.widget.ImageView;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static android.os.Build.VERSION.SDK_INT;
+import static android.os.Build.VERSION_CODES.HONEYCOMB_MR1;
+import static android.widget.AdapterView.INVALID_POSITION;
+
+/**
+ * A scroll listener for lists and grids which stops loading images for rows that fly past.
+ * <p/>
+ * Tag every request made by the adapter with the same tag and install this listener on the list.
+ * While the list flings faster than the threshold, requests with the tag are paused: new
+ * {@link RequestCreator#into(ImageView) into()} calls are held by the dispatcher and hunters which
+ * have not started yet are set aside. Hunters which already started are lowered to
+ * {@link Picasso.Priority#LOW low} priority once their rows leave the visible item range. Once the
+ * fling slows down, requests for rows outside the visible item range are cancelled and only the
+ * rest are resumed. Should the list leave its window mid-fling, the tag is resumed right away.
+ *
+ * @see Picasso#pauseTag(Object)
+ * @see Picasso#resumeTag(Object)
+ */
+public class PicassoScrollListener implements AbsListView.OnScrollListener {
+    /**
+     * The default scrolling speed, in items per second, above which requests are paused.
+     */
+    public static final int DEFAULT_FLING_THRESHOLD = 20;
+
+    private final Picasso picasso;
+    private final Object tag;
+    private final int flingThreshold;
+    private final AbsListView.OnScrollListener delegate;
+    private final Set<Action> lowered = new HashSet<Action>();
+
+    private int scrollState = SCROLL_STATE_IDLE;
+    private int firstVisibleItem = -1;
+    private int visibleItemCount;
+    private long lastItemChangeTime;
+    private float velocity; // Items per second.
+    private boolean paused;
+    private AbsListView pausedList;
+    private DetachWatcher detachWatcher;
+    private int flingCount;
+    private int skippedRequestCount;
+
+    public PicassoScrollListener(final Picasso picasso, final Object tag) {
+        this(picasso, tag, DEFAULT_FLING_THRESHOLD, null);
+    }
+
+    /**
+     * @param flingThreshold The scrolling speed, in items per second, above which requests are paused.
+     * @param delegate A listener which receives every scroll event as well. May be {@code null}.
+     */
+    public PicassoScrollListener(final Picasso picasso, final Object tag, final int flingThreshold,
+                                 final AbsListView.OnScrollListener delegate) {
+        if (picasso == null) {
+            throw new IllegalArgumentException("Picasso must not be null.");
+        }
+        if (tag == null) {
+            throw new IllegalArgumentException("Tag must not be null.");
+        }
+        if (flingThreshold <= 0) {
+            throw new IllegalArgumentException("Fling threshold must be positive.");
+        }
+        this.picasso = picasso;
+        this.tag = tag;
+        this.flingThreshold = flingThreshold;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onScrollStateChanged(final AbsListView view, final int scrollState) {
+        if (scrollState == SCROLL_STATE_FLING && this.scrollState != SCROLL_STATE_FLING) {
+            flingCount++;
+        }
+        this.scrollState = scrollState;
+        update(view);
+        if (delegate != null) {
+            delegate.onScrollStateChanged(view, scrollState);
+        }
+    }
+
+    @Override
+    public void onScroll(final AbsListView view, final int firstVisibleItem, final int visibleItemCount,
+                         final int totalItemCount) {
+        final long now = SystemClock.uptimeMillis();
+        final boolean moved = firstVisibleItem != this.firstVisibleItem
+                || visibleItemCount != this.visibleItemCount;
+        if (firstVisibleItem != this.firstVisibleItem) {
+            if (this.firstVisibleItem != -1) {
+                final long elapsed = Math.max(1, now - lastItemChangeTime);
+                velocity = Math.abs(firstVisibleItem - this.firstVisibleItem) * 1000f / elapsed;
+            }
+            lastItemChangeTime = now;
+        } else if (now > lastItemChangeTime) {
+            // No new item for a while. The list cannot be moving faster than one item in that time.
+            velocity = Math.min(velocity, 1000f / (now - lastItemChangeTime));
+        }
+        this.firstVisibleItem = firstVisibleItem;
+        this.visibleItemCount = visibleItemCount;
+        final boolean wasPaused = paused;
+        update(view);
+        if (wasPaused && paused && moved) {
+            deprioritizeOffscreenRequests(view);
+        }
+        if (delegate != null) {
+            delegate.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+        }
+    }
+
+    /**
+     * Returns the number of flings seen so far.
+     */
+    public int getFlingCount() {
+        return flingCount;
+    }
+
+    /**
+     * Returns the number of requests cancelled because their row scrolled off screen while they
+     * were paused, each a decode which would have been wasted.
+     */
+    public int getSkippedRequestCount() {
+        return skippedRequestCount;
+    }
+
+    private void update(final AbsListView view) {
+        // Pausing takes two scroll events to measure the velocity, so the visible range is known.
+        final boolean fast = scrollState == SCROLL_STATE_FLING && velocity >= flingThreshold;
+        if (fast && !paused) {
+            paused = true;
+            pausedList = view;
+            picasso.pauseTag(tag);
+            if (SDK_INT >= HONEYCOMB_MR1) {
+                if (detachWatcher == null) {
+                    detachWatcher = new DetachWatcher(this);
+                }
+                view.addOnAttachStateChangeListener(detachWatcher);
+            }
+            deprioritizeOffscreenRequests(view);
+        } else if (!fast && paused) {
+            resume();
+            cancelOffscreenRequests(view);
+            // Cancels are dispatched first, so only the requests still on screen are resumed.
+            picasso.resumeTag(tag);
+        }
+    }
+
+    private void resume() {
+        paused = false;
+        if (detachWatcher != null) {
+            pausedList.removeOnAttachStateChangeListener(detachWatcher);
+        }
+        pausedList = null;
+        lowered.clear();
+    }
+
+    private void onDetached() {
+        if (paused) {
+            resume();
+            picasso.resumeTag(tag);
+        }
+    }
+
+    private void deprioritizeOffscreenRequests(final AbsListView list) {
+        for (final Action action : picasso.targetToAction.values()) {
+            if (!tag.equals(action.getTag()) || lowered.contains(action)) {
+                continue;
+            }
+            final Object target = action.getTarget();
+            if (target instanceof ImageView && !isVisible((View) target, list)) {
+                lowered.add(action);
+                picasso.dispatcher.dispatchDeprioritize(action);
+            }
+        }
+    }
+
+    private void cancelOffscreenRequests(final AbsListView list) {
+        List<ImageView> offscreen = null;
+        for (final Action action : picasso.targetToAction.values()) {
+            if (!tag.equals(action.getTag())) {
+                continue;
+            }
+            final Object target = action.getTarget();
+            if (target instanceof ImageView && !isVisible((View) target, list)) {
+                if (offscreen == null) {
+                    offscreen = new ArrayList<ImageView>();
+                }
+                offscreen.add((ImageView) target);
+            }
+        }
+        if (offscreen == null) {
+            return;
+        }
+        for (final ImageView target : offscreen) {
+            picasso.cancelRequest(target);
+        }
+        skippedRequestCount += offscreen.size();
+    }
+
+    /**
+     * Whether {@code view} belongs to a row in the visible item range last reported by the list.
+     * Rows which scrolled off have no position while they wait to be reused.
+     */
+    private boolean isVisible(final View view, final AbsListView list) {
+        final int position = list.getPositionForView(view);
+        return position != INVALID_POSITION
+                && position >= firstVisibleItem && position < firstVisibleItem + visibleItemCount;
+    }
+
+    @TargetApi(HONEYCOMB_MR1)
+    private static class DetachWatcher implements View.OnAttachStateChangeListener {
+        private final PicassoScrollListener listener;
+
+        DetachWatcher(final PicassoScrollListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onViewAttachedToWindow(final View v) {
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(final View v) {
+            listener.onDetached();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.squareup.picasso.Utils.createKey;
+
+/**
+ * A batch of images being loaded ahead of time, returned by
+ * {@link Picasso#prefetch(List, PrefetchOptions)}.
+ * <p/>
+ * Requests are submitted at {@link Picasso.Priority#LOW low} priority, and only as many at a time
+ * as the options allow, so that a large batch never crowds out the images on screen. Progress may
+ * be read from any thread. {@link #cancel()} must be called from the main thread.
+ */
+public final class Prefetch {
+    private final Picasso picasso;
+    private final List<Request> requests;
+    private final PrefetchOptions options;
+    private final Object tag;
+    private final List<PrefetchAction> running;
+
+    private int nextIndex;
+    private volatile int succeeded;
+    private volatile int failed;
+    private volatile boolean cancelled;
+
+    Prefetch(final Picasso picasso, final List<Request> requests, final PrefetchOptions options) {
+        this.picasso = picasso;
+        this.requests = new ArrayList<Request>(requests);
+        this.options = options;
+        this.tag = options.tag != null ? options.tag : this;
+        this.running = new ArrayList<PrefetchAction>(options.maxConcurrent);
+    }
+
+    /**
+     * Returns the number of requests in the batch.
+     */
+    public int getTotal() {
+        return requests.size();
+    }
+
+    /**
+     * Returns the number of requests which loaded successfully.
+     */
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * Returns the number of requests which failed.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Whether every request finished or the batch was cancelled.
+     */
+    public boolean isDone() {
+        return cancelled || succeeded + failed == requests.size();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancel the requests in flight and drop those which have not been submitted yet.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        // Cancelled actions report back to finish(), so take them out of the batch first.
+        final List<PrefetchAction> actions = new ArrayList<PrefetchAction>(running);
+        running.clear();
+        for (final PrefetchAction action : actions) {
+            action.cancel();
+            picasso.dispatcher.dispatchCancel(action);
+        }
+    }
+
+    void start() {
+        submitNext();
+    }
+
+    void finish(final PrefetchAction action, final boolean success) {
+        if (!running.remove(action)) {
+            return;
+        }
+        if (success) {
+            succeeded++;
+        } else {
+            failed++;
+        }
+        submitNext();
+    }
+
+    private void submitNext() {
+        while (!cancelled && running.size() < options.maxConcurrent && nextIndex < requests.size()) {
+            final Request data = picasso.transformRequest(requests.get(nextIndex++));
+            final RequestKey key = options.diskCacheOnly ? new RequestKey(data, true) : createKey(data);
+            if (!key.warmup && picasso.quickMemoryCacheCheck(key) != null) {
+                succeeded++;
+                continue;
+            }
+            final PrefetchAction action = new PrefetchAction(picasso, data, key, tag, this);
+            running.add(action);
+            picasso.submit(action);
+        }
+    }
+}
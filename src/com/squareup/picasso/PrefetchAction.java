@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.graphics.Bitmap;
+
+class PrefetchAction extends Action<Void> {
+    final Prefetch prefetch;
+
+    PrefetchAction(final Picasso picasso, final Request data, final RequestKey key, final Object tag,
+                   final Prefetch prefetch) {
+        super(picasso, null, data, key.warmup, false, 0, null, key, Picasso.Priority.LOW, tag);
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    void complete(final Bitmap result, final Picasso.LoadedFrom from) {
+        prefetch.finish(this, true);
+    }
+
+    @Override
+    public void error() {
+        prefetch.finish(this, false);
+    }
+
+    @Override
+    void cancel() {
+        super.cancel();
+        prefetch.finish(this, false);
+    }
+}
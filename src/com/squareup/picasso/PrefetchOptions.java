@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+/**
+ * How {@link Picasso#prefetch(java.util.List, PrefetchOptions)} loads a batch of images.
+ */
+public final class PrefetchOptions {
+    /**
+     * Two requests at a time, decoded into the memory cache.
+     */
+    public static final PrefetchOptions DEFAULT = new Builder().build();
+
+    static final int DEFAULT_MAX_CONCURRENT = 2;
+
+    final int maxConcurrent;
+    final boolean diskCacheOnly;
+    final Object tag;
+
+    private PrefetchOptions(final int maxConcurrent, final boolean diskCacheOnly, final Object tag) {
+        this.maxConcurrent = maxConcurrent;
+        this.diskCacheOnly = diskCacheOnly;
+        this.tag = tag;
+    }
+
+    public static final class Builder {
+        private int maxConcurrent;
+        private boolean diskCacheOnly;
+        private Object tag;
+
+        /**
+         * The number of requests of the batch which may be in flight at the same time.
+         */
+        public Builder maxConcurrent(final int maxConcurrent) {
+            if (maxConcurrent <= 0) {
+                throw new IllegalArgumentException("Max concurrent requests must be positive.");
+            }
+            if (this.maxConcurrent != 0) {
+                throw new IllegalStateException("Max concurrent requests already set.");
+            }
+            this.maxConcurrent = maxConcurrent;
+            return this;
+        }
+
+        /**
+         * Only download images into the disk cache of the {@link Downloader}. Nothing is decoded and
+         * the memory cache is left alone. Images from local sources need no warming and succeed.
+         */
+        public Builder diskCacheOnly() {
+            this.diskCacheOnly = true;
+            return this;
+        }
+
+        /**
+         * Tag every request of the batch, to pause and resume them together with
+         * {@link Picasso#pauseTag(Object)}. By default the requests are tagged with their
+         * {@link Prefetch} handle.
+         */
+        public Builder tag(final Object tag) {
+            if (tag == null) {
+                throw new IllegalArgumentException("Tag must not be null.");
+            }
+            if (this.tag != null) {
+                throw new IllegalStateException("Tag already set.");
+            }
+            this.tag = tag;
+            return this;
+        }
+
+        public PrefetchOptions build() {
+            return new PrefetchOptions(maxConcurrent != 0 ? maxConcurrent : DEFAULT_MAX_CONCURRENT, diskCacheOnly,
+                    tag);
+        }
+    }
+}
@@ -83,10 +83,16 @@ public final class Request {
      * Target image config for decoding.
      */
     public final Bitmap.Config config;
+    /**
+     * True if the image should be decoded straight to the target size rather than to a power of two
+     * sample which is scaled afterwards.
+     */
+    public final boolean exactDecode;
 
     private Request(final Uri uri, final int resourceId, final List<Transformation> transformations, final int targetWidth,
                     final int targetHeight, final boolean centerCrop, final boolean centerInside, final float rotationDegrees,
-                    final float rotationPivotX, final float rotationPivotY, final boolean hasRotationPivot, final Bitmap.Config config) {
+                    final float rotationPivotX, final float rotationPivotY, final boolean hasRotationPivot,
+                    final Bitmap.Config config, final boolean exactDecode) {
         this.uri = uri;
         this.resourceId = resourceId;
         if (transformations == null) {
@@ -103,6 +109,7 @@ public final class Request {
         this.rotationPivotY = rotationPivotY;
         this.hasRotationPivot = hasRotationPivot;
         this.config = config;
+        this.exactDecode = exactDecode;
     }
 
     String getName() {
@@ -148,6 +155,7 @@ public final class Request {
         private boolean hasRotationPivot;
         private List<Transformation> transformations;
         private Bitmap.Config config;
+        private boolean exactDecode;
 
         /**
          * Start building a request using the specified {@link Uri}.
@@ -183,6 +191,7 @@ public final class Request {
                 transformations = new ArrayList<Transformation>(request.transformations);
             }
             config = request.config;
+            exactDecode = request.exactDecode;
         }
 
         boolean hasImage() {
@@ -326,6 +335,28 @@ public final class Request {
             return this;
         }
 
+        /**
+         * Decode the image straight to the size specified by {@link #resize(int, int)}. The decoder
+         * samples down by the largest power of two which stays above the target and scales the rest
+         * of the way while decoding, so no second full-size bitmap is needed to resize the result.
+         * <p/>
+         * Resources are always sampled by a power of two, as they already carry their own density
+         * scaling. Large center crops are decoded whole instead of by region, since the region
+         * decoder cannot scale to an exact size.
+         */
+        public Builder exactDecode() {
+            exactDecode = true;
+            return this;
+        }
+
+        /**
+         * Clear the exact decode flag, if set.
+         */
+        public Builder clearExactDecode() {
+            exactDecode = false;
+            return this;
+        }
+
         /**
          * Add a custom transformation to be applied to the image.
          * <p/>
@@ -355,8 +386,12 @@ public final class Request {
             if (centerInside && targetWidth == 0) {
                 throw new IllegalStateException("Center inside requires calling resize.");
             }
+            if (exactDecode && targetWidth == 0) {
+                throw new IllegalStateException("Exact decode requires calling resize.");
+            }
             return new Request(uri, resourceId, transformations, targetWidth, targetHeight, centerCrop,
-                    centerInside, rotationDegrees, rotationPivotX, rotationPivotY, hasRotationPivot, config);
+                    centerInside, rotationDegrees, rotationPivotX, rotationPivotY, hasRotationPivot, config,
+                    exactDecode);
         }
     }
 }
@@ -22,9 +22,11 @@ import android.net.Uri;
 import android.widget.ImageView;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
-import static com.squareup.picasso.BitmapHunter.forRequest;
 import static com.squareup.picasso.Picasso.LoadedFrom.MEMORY;
+import static com.squareup.picasso.Picasso.Priority.LOW;
+import static com.squareup.picasso.Picasso.Priority.NORMAL;
 import static com.squareup.picasso.Utils.checkNotMain;
 import static com.squareup.picasso.Utils.createKey;
 
@@ -43,6 +45,8 @@ public class RequestCreator {
     private int errorResId;
     private Drawable placeholderDrawable;
     private Drawable errorDrawable;
+    private Picasso.Priority priority;
+    private Object tag;
 
     RequestCreator(final Picasso picasso, final Uri uri, final int resourceId) {
         if (picasso.shutdown) {
@@ -174,6 +178,17 @@ public class RequestCreator {
         return this;
     }
 
+    /**
+     * Decode the image straight to the size specified by {@link #resize(int, int)} instead of
+     * scaling a larger decoded bitmap afterwards.
+     *
+     * @see Request.Builder#exactDecode()
+     */
+    public RequestCreator exactDecode() {
+        data.exactDecode();
+        return this;
+    }
+
     /**
      * Rotate the image by the specified degrees.
      */
@@ -219,6 +234,56 @@ public class RequestCreator {
         return this;
     }
 
+    /**
+     * Set the priority of this request. Requests with a higher priority are started before queued
+     * requests with a lower priority.
+     * <p/>
+     * Defaults to {@link Picasso.Priority#NORMAL NORMAL}, or {@link Picasso.Priority#LOW LOW} for
+     * {@link #fetch()}.
+     */
+    public RequestCreator priority(final Picasso.Priority priority) {
+        if (priority == null) {
+            throw new IllegalArgumentException("Priority must not be null.");
+        }
+        if (this.priority != null) {
+            throw new IllegalStateException("Priority already set.");
+        }
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Assign a tag to this request. Tags are an easy way to logically associate related requests
+     * that can be managed together, e.g. paused, resumed, or canceled.
+     * <p/>
+     * You can either use simple {@link String} tags or objects that naturally define the scope of
+     * your requests within your app such as a {@link android.content.Context}, an
+     * {@link android.app.Activity}, or a {@link android.app.Fragment}.
+     * <p/>
+     * <em>Note:</em> Paused tags are strongly referenced until they are resumed.
+     *
+     * @see Picasso#pauseTag(Object)
+     * @see Picasso#resumeTag(Object)
+     * @see Picasso#cancelTag(Object)
+     */
+    public RequestCreator tag(final Object tag) {
+        if (tag == null) {
+            throw new IllegalArgumentException("Tag invalid.");
+        }
+        if (this.tag != null) {
+            throw new IllegalStateException("Tag already set.");
+        }
+        this.tag = tag;
+        return this;
+    }
+
+    /**
+     * Internal use only. Used by {@link Picasso#cancelTag(Object)}.
+     */
+    Object getTag() {
+        return tag;
+    }
+
     /**
      * Disable brief fade in of images loaded from the disk cache or network.
      */
@@ -229,9 +294,27 @@ public class RequestCreator {
 
     /**
      * Synchronously fulfill this request. Must not be called from the main thread.
+     * <p/>
+     * The request joins a load of the same image which is already in flight, and its result is
+     * stored in the memory cache unless {@link #skipMemoryCache()} was used.
      */
     public Bitmap get() throws IOException {
+        return get(0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Synchronously fulfill this request, waiting at most {@code timeout}. Must not be called from
+     * the main thread.
+     *
+     * @throws java.io.InterruptedIOException if the request timed out or the thread was
+     * interrupted. The request is cancelled.
+     * @see #get()
+     */
+    public Bitmap get(final long timeout, final TimeUnit unit) throws IOException {
         checkNotMain();
+        if (unit == null) {
+            throw new IllegalArgumentException("Time unit must not be null.");
+        }
         if (deferred) {
             throw new IllegalStateException("Fit cannot be used with get.");
         }
@@ -240,11 +323,52 @@ public class RequestCreator {
         }
 
         final Request finalData = picasso.transformRequest(data.build());
-        final String key = createKey(finalData, new StringBuilder());
+        final RequestKey key = createKey(finalData);
+
+        if (!skipMemoryCache) {
+            final Bitmap bitmap = picasso.quickMemoryCacheCheck(key);
+            if (bitmap != null) {
+                return bitmap;
+            }
+        }
 
-        final Action action = new GetAction(picasso, finalData, skipMemoryCache, key);
-        return forRequest(picasso.context, picasso, picasso.dispatcher, picasso.cache, picasso.stats,
-                action, picasso.dispatcher.downloader).hunt();
+        final GetAction action = new GetAction(picasso, finalData, skipMemoryCache, key, getPriority(NORMAL));
+        picasso.submit(action);
+        return action.await(timeout, unit);
+    }
+
+    /**
+     * Asynchronously fulfills the request and returns its pending result, for consumers which are
+     * neither an {@link ImageView} nor a {@link Target}. The future completes on a background
+     * thread as soon as the image is ready. It may be called from any thread.
+     * <p/>
+     * To load several images in parallel, submit each of them and combine the futures with
+     * {@link BitmapFuture#whenAll(java.util.List, Runnable)} or
+     * {@link BitmapFuture#getAll(java.util.List, long, TimeUnit)}.
+     */
+    public BitmapFuture submit() {
+        if (deferred) {
+            throw new IllegalStateException("Fit cannot be used with submit.");
+        }
+        final Request finalData = data.hasImage() ? picasso.transformRequest(data.build()) : null;
+        final RequestKey key = finalData != null ? createKey(finalData) : null;
+        final GetAction action = new GetAction(picasso, finalData, skipMemoryCache, key, getPriority(NORMAL));
+        final BitmapFuture future = new BitmapFuture(action);
+        if (finalData == null) {
+            action.finish(null, null);
+            return future;
+        }
+
+        if (!skipMemoryCache) {
+            final Bitmap bitmap = picasso.quickMemoryCacheCheck(key);
+            if (bitmap != null) {
+                action.finish(bitmap, null);
+                return future;
+            }
+        }
+
+        picasso.submit(action);
+        return future;
     }
 
     /**
@@ -257,9 +381,9 @@ public class RequestCreator {
         }
         if (data.hasImage()) {
             final Request finalData = picasso.transformRequest(data.build());
-            final String key = createKey(finalData);
+            final RequestKey key = createKey(finalData);
 
-            final Action action = new FetchAction(picasso, finalData, skipMemoryCache, key);
+            final Action action = new FetchAction(picasso, finalData, skipMemoryCache, key, getPriority(LOW), tag);
             picasso.enqueueAndSubmit(action);
         }
     }
@@ -328,7 +452,7 @@ public class RequestCreator {
         }
 
         final Request finalData = picasso.transformRequest(data.build());
-        final String requestKey = createKey(finalData);
+        final RequestKey requestKey = createKey(finalData);
 
         if (!skipMemoryCache) {
             final Bitmap bitmap = picasso.quickMemoryCacheCheck(requestKey);
@@ -341,7 +465,9 @@ public class RequestCreator {
 
         target.onPrepareLoad(drawable);
 
-        final Action action = new TargetAction(picasso, target, finalData, skipMemoryCache, requestKey);
+        final Action action =
+                new TargetAction(picasso, target, finalData, skipMemoryCache, requestKey, getPriority(NORMAL),
+                        tag);
         picasso.enqueueAndSubmit(action);
     }
 
@@ -390,7 +516,7 @@ public class RequestCreator {
         }
 
         final Request finalData = picasso.transformRequest(data.build());
-        final String requestKey = createKey(finalData);
+        final RequestKey requestKey = createKey(finalData);
 
         if (!skipMemoryCache) {
             final Bitmap bitmap = picasso.quickMemoryCacheCheck(requestKey);
@@ -409,8 +535,12 @@ public class RequestCreator {
 
         final Action action =
                 new ImageViewAction(picasso, target, finalData, skipMemoryCache, noFade, errorResId,
-                        errorDrawable, requestKey, callback);
+                        errorDrawable, requestKey, getPriority(NORMAL), tag, callback);
 
         picasso.enqueueAndSubmit(action);
     }
+
+    private Picasso.Priority getPriority(final Picasso.Priority defaultPriority) {
+        return priority != null ? priority : defaultPriority;
+    }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.net.Uri;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Identifies the image a {@link Request} produces: its source and every transformation which
+ * changes its pixels. Two requests with equal keys share cached results and in-flight work.
+ * <p/>
+ * A key references the request's fields instead of concatenating them into a string, and carries
+ * a 64-bit hash computed once up front so that map lookups never rehash the URI. The string form
+ * returned by {@link #toString()} is built lazily and is only used for logging and on-disk names.
+ * <p/>
+ * Requests which only warm the disk cache have keys of their own, since they produce no image.
+ */
+public final class RequestKey {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int KEY_PADDING = 50; // Determined by exact science.
+
+    final Uri uri;
+    final int resourceId;
+    final float rotationDegrees;
+    final float rotationPivotX;
+    final float rotationPivotY;
+    final boolean hasRotationPivot;
+    final int targetWidth;
+    final int targetHeight;
+    final boolean centerCrop;
+    final boolean centerInside;
+    final String[] transformationKeys;
+    final boolean warmup;
+    final long hash;
+
+    private String string;
+
+    RequestKey(final Request data) {
+        this(data, false);
+    }
+
+    RequestKey(final Request data, final boolean warmup) {
+        this.warmup = warmup;
+        this.uri = data.uri;
+        this.resourceId = data.resourceId;
+        this.rotationDegrees = data.rotationDegrees;
+        this.hasRotationPivot = data.rotationDegrees != 0 && data.hasRotationPivot;
+        this.rotationPivotX = hasRotationPivot ? data.rotationPivotX : 0;
+        this.rotationPivotY = hasRotationPivot ? data.rotationPivotY : 0;
+        this.targetWidth = data.targetWidth;
+        this.targetHeight = data.targetWidth != 0 ? data.targetHeight : 0;
+        this.centerCrop = data.centerCrop;
+        this.centerInside = !data.centerCrop && data.centerInside;
+
+        final List<Transformation> transformations = data.transformations;
+        if (transformations == null || transformations.isEmpty()) {
+            this.transformationKeys = null;
+        } else {
+            final String[] keys = new String[transformations.size()];
+            //noinspection ForLoopReplaceableByForEach
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = transformations.get(i).key();
+            }
+            this.transformationKeys = keys;
+        }
+
+        long h = FNV_OFFSET_BASIS;
+        if (uri != null) {
+            h = mix(h, uri.toString());
+        } else {
+            h = mix(h, resourceId);
+        }
+        h = mix(h, Float.floatToIntBits(rotationDegrees));
+        h = mix(h, Float.floatToIntBits(rotationPivotX));
+        h = mix(h, Float.floatToIntBits(rotationPivotY));
+        h = mix(h, targetWidth);
+        h = mix(h, targetHeight);
+        h = mix(h, (centerCrop ? 1 : 0) | (centerInside ? 2 : 0) | (warmup ? 4 : 0));
+        if (transformationKeys != null) {
+            for (final String key : transformationKeys) {
+                h = mix(h, key);
+            }
+        }
+        this.hash = h;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestKey)) {
+            return false;
+        }
+        final RequestKey other = (RequestKey) o;
+        return hash == other.hash
+                && resourceId == other.resourceId
+                && targetWidth == other.targetWidth
+                && targetHeight == other.targetHeight
+                && centerCrop == other.centerCrop
+                && centerInside == other.centerInside
+                && warmup == other.warmup
+                && hasRotationPivot == other.hasRotationPivot
+                && Float.floatToIntBits(rotationDegrees) == Float.floatToIntBits(other.rotationDegrees)
+                && Float.floatToIntBits(rotationPivotX) == Float.floatToIntBits(other.rotationPivotX)
+                && Float.floatToIntBits(rotationPivotY) == Float.floatToIntBits(other.rotationPivotY)
+                && (uri == null ? other.uri == null : uri.equals(other.uri))
+                && Arrays.equals(transformationKeys, other.transformationKeys);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Returns a stable, human readable form of this key. Built on first use and then reused.
+     */
+    @Override
+    public String toString() {
+        String result = string;
+        if (result == null) {
+            result = buildString();
+            string = result;
+        }
+        return result;
+    }
+
+    private String buildString() {
+        final StringBuilder builder;
+        if (uri != null) {
+            final String path = uri.toString();
+            builder = new StringBuilder(path.length() + KEY_PADDING);
+            builder.append(path);
+        } else {
+            builder = new StringBuilder(KEY_PADDING);
+            builder.append(resourceId);
+        }
+        builder.append('\n');
+
+        if (rotationDegrees != 0) {
+            builder.append("rotation:").append(rotationDegrees);
+            if (hasRotationPivot) {
+                builder.append('@').append(rotationPivotX).append('x').append(rotationPivotY);
+            }
+            builder.append('\n');
+        }
+        if (targetWidth != 0) {
+            builder.append("resize:").append(targetWidth).append('x').append(targetHeight);
+            builder.append('\n');
+        }
+        if (centerCrop) {
+            builder.append("centerCrop\n");
+        } else if (centerInside) {
+            builder.append("centerInside\n");
+        }
+
+        if (transformationKeys != null) {
+            for (final String key : transformationKeys) {
+                builder.append(key);
+                builder.append('\n');
+            }
+        }
+        if (warmup) {
+            builder.append("warmup\n");
+        }
+
+        return builder.toString();
+    }
+
+    private static long mix(long h, final String value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            h = (h ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // Terminate so that adjacent strings cannot shift characters between each other.
+        return (h ^ 0xFFFF) * FNV_PRIME;
+    }
+
+    private static long mix(final long h, final int value) {
+        return (h ^ value) * FNV_PRIME;
+    }
+}
@@ -22,8 +22,6 @@ import android.graphics.BitmapFactory;
 
 import java.io.IOException;
 
-import static com.squareup.picasso.Picasso.LoadedFrom.DISK;
-
 class ResourceBitmapHunter extends BitmapHunter {
     private final Context context;
 
@@ -40,17 +38,13 @@ class ResourceBitmapHunter extends BitmapHunter {
         return decodeResource(res, id, data);
     }
 
-    @Override
-    Picasso.LoadedFrom getLoadedFrom() {
-        return DISK;
-    }
-
     private Bitmap decodeResource(final Resources resources, final int id, final Request data) {
         final BitmapFactory.Options bitmapOptions = createBitmapOptions(data);
         if (data.hasSize()) {
             bitmapOptions.inJustDecodeBounds = true;
             BitmapFactory.decodeResource(resources, id, bitmapOptions);
             calculateInSampleSize(data.targetWidth, data.targetHeight, bitmapOptions);
+            reuseBitmap(bitmapOptions);
         }
         return BitmapFactory.decodeResource(resources, id, bitmapOptions);
     }
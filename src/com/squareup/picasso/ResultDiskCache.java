@@ -0,0 +1,433 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A disk cache of final, decoded and transformed images keyed by the full request key. This sits
+ * behind the memory cache so that a cold start can skip decoding and transforming images which
+ * were already produced by an earlier run.
+ * <p/>
+ * Entries are tracked in an append-only journal and evicted least-recently used first once the
+ * total size exceeds the maximum size. The cache is opened lazily on the first background access.
+ * Images are written on a single background thread of their own, so that storing a result never
+ * delays its delivery. Opaque images are stored as JPEG and the others as PNG.
+ */
+public class ResultDiskCache {
+    static final String JOURNAL_FILE = "journal";
+    static final String JOURNAL_FILE_TMP = "journal.tmp";
+    private static final String RESULT_CACHE = "picasso-results";
+    private static final String CLEAN = "CLEAN";
+    private static final String REMOVE = "REMOVE";
+    private static final String READ = "READ";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final int REDUNDANT_OP_COMPACT_THRESHOLD = 2000;
+    private static final int JPEG_QUALITY = 90;
+    private static final long WRITER_KEEP_ALIVE_SECONDS = 30;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final File directory;
+    private final long maxSize;
+    private final LinkedHashMap<String, Entry> entries;
+    private final ThreadPoolExecutor writer;
+
+    private Writer journalWriter;
+    private long size;
+    private int redundantOpCount;
+    private boolean opened;
+    private boolean broken;
+
+    /**
+     * Create a cache in the application cache directory using 2% of the total space, capped at 50MB
+     * and no less than 5MB.
+     */
+    public ResultDiskCache(final Context context) {
+        this(new File(context.getApplicationContext().getCacheDir(), RESULT_CACHE));
+    }
+
+    /**
+     * Create a cache in {@code directory} using 2% of the total space, capped at 50MB and no less
+     * than 5MB.
+     */
+    public ResultDiskCache(final File directory) {
+        this(directory, Utils.calculateDiskCacheSize(directory.getParentFile() != null
+                ? directory.getParentFile() : directory));
+    }
+
+    /**
+     * Create a cache in {@code directory} with a given maximum size in bytes.
+     */
+    public ResultDiskCache(final File directory, final long maxSize) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory must not be null.");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive.");
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<String, Entry>(0, 0.75f, true);
+        this.writer = new ThreadPoolExecutor(1, 1, WRITER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new Utils.PicassoThreadFactory());
+        this.writer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Decode the image stored for {@code key} with {@code options} or return {@code null}.
+     */
+    Bitmap get(final RequestKey key, final BitmapFactory.Options options) {
+        final String name = nameFor(key.toString());
+        final Entry entry;
+        final File file;
+        synchronized (this) {
+            if (!ensureOpen()) {
+                return null;
+            }
+            entry = entries.get(name);
+            if (entry == null) {
+                return null;
+            }
+            journal(READ, name, -1);
+            file = new File(directory, name);
+        }
+
+        final Bitmap bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        if (bitmap == null) {
+            // The file is missing or corrupt. Forget it so we don't try again, unless it was
+            // replaced while we were decoding.
+            synchronized (this) {
+                if (entries.get(name) == entry) {
+                    removeEntry(name);
+                }
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Store {@code bitmap} for {@code key} in the background, replacing any existing image. The
+     * write is skipped if the bitmap is recycled or its pixels change before they are written.
+     */
+    void set(final RequestKey key, final Bitmap bitmap) {
+        final int generation = Utils.getBitmapGeneration(bitmap);
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(key, bitmap, generation);
+            }
+        });
+    }
+
+    private void write(final RequestKey key, final Bitmap bitmap, final int generation) {
+        final String name = nameFor(key.toString());
+        synchronized (this) {
+            if (!ensureOpen()) {
+                return;
+            }
+        }
+
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(name, TMP_SUFFIX, directory);
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp));
+            boolean written = false;
+            try {
+                if (isUnchanged(bitmap, generation)) {
+                    written = bitmap.hasAlpha()
+                            ? bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
+                            : bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+                }
+            } finally {
+                out.close();
+            }
+            // A pooled bitmap may have been decoded into while it was being compressed.
+            if (!written || !isUnchanged(bitmap, generation)) {
+                tmp.delete();
+                return;
+            }
+
+            synchronized (this) {
+                final File file = new File(directory, name);
+                if (!tmp.renameTo(file)) {
+                    tmp.delete();
+                    return;
+                }
+                final long length = file.length();
+                final Entry previous = entries.put(name, new Entry(length));
+                if (previous != null) {
+                    size -= previous.length;
+                }
+                size += length;
+                journal(CLEAN, name, length);
+                trimToSize();
+            }
+        } catch (final IOException e) {
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    private static boolean isUnchanged(final Bitmap bitmap, final int generation) {
+        return !bitmap.isRecycled() && Utils.getBitmapGeneration(bitmap) == generation;
+    }
+
+    /**
+     * Returns the sum of the sizes of the entries in this cache.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum sum of the sizes of the entries in this cache.
+     */
+    public long maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Delete every entry in this cache.
+     */
+    public synchronized void clear() {
+        if (!ensureOpen()) {
+            return;
+        }
+        for (final String name : entries.keySet()) {
+            new File(directory, name).delete();
+        }
+        entries.clear();
+        size = 0;
+        rebuildJournal();
+    }
+
+    private boolean ensureOpen() {
+        if (opened) {
+            return !broken;
+        }
+        opened = true;
+        if (!directory.exists() && !directory.mkdirs()) {
+            broken = true;
+            return false;
+        }
+        readJournal();
+        deleteUntrackedFiles();
+        rebuildJournal();
+        return !broken;
+    }
+
+    private void readJournal() {
+        final File journal = new File(directory, JOURNAL_FILE);
+        if (!journal.exists()) {
+            return;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(journal), "US-ASCII"));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] parts = line.split(" ");
+                if (parts.length == 3 && CLEAN.equals(parts[0])) {
+                    final long length;
+                    try {
+                        length = Long.parseLong(parts[2]);
+                    } catch (final NumberFormatException e) {
+                        continue;
+                    }
+                    final Entry previous = entries.put(parts[1], new Entry(length));
+                    if (previous != null) {
+                        size -= previous.length;
+                    }
+                    size += length;
+                } else if (parts.length == 2 && REMOVE.equals(parts[0])) {
+                    final Entry previous = entries.remove(parts[1]);
+                    if (previous != null) {
+                        size -= previous.length;
+                    }
+                } else if (parts.length == 2 && READ.equals(parts[0])) {
+                    entries.get(parts[1]);
+                }
+            }
+        } catch (final IOException ignored) {
+            // Keep whatever was read before the journal was truncated.
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (final IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private void deleteUntrackedFiles() {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (final File file : files) {
+            final String name = file.getName();
+            if (JOURNAL_FILE.equals(name)) {
+                continue;
+            }
+            final Entry entry = entries.get(name);
+            if (entry == null) {
+                file.delete();
+            } else if (entry.length != file.length()) {
+                removeEntry(name);
+            }
+        }
+    }
+
+    /**
+     * Replace the journal with one which only contains the current entries.
+     */
+    private void rebuildJournal() {
+        closeJournal();
+        final File journalTmp = new File(directory, JOURNAL_FILE_TMP);
+        try {
+            final Writer writer =
+                    new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalTmp), "US-ASCII"));
+            try {
+                for (final Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writer.write(CLEAN + ' ' + entry.getKey() + ' ' + entry.getValue().length + '\n');
+                }
+            } finally {
+                writer.close();
+            }
+            final File journal = new File(directory, JOURNAL_FILE);
+            if (!journalTmp.renameTo(journal)) {
+                throw new IOException("Unable to replace " + journal);
+            }
+            journalWriter = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(journal, true), "US-ASCII"));
+            redundantOpCount = 0;
+        } catch (final IOException e) {
+            broken = true;
+        }
+    }
+
+    private void journal(final String op, final String name, final long length) {
+        if (journalWriter == null) {
+            return;
+        }
+        try {
+            journalWriter.write(op);
+            journalWriter.write(' ');
+            journalWriter.write(name);
+            if (length >= 0) {
+                journalWriter.write(' ');
+                journalWriter.write(Long.toString(length));
+            }
+            journalWriter.write('\n');
+            // Losing a READ only costs some recency after a crash, so leave those for the next
+            // CLEAN or REMOVE to flush.
+            if (!READ.equals(op)) {
+                journalWriter.flush();
+            }
+        } catch (final IOException e) {
+            closeJournal();
+            broken = true;
+            return;
+        }
+        if (!CLEAN.equals(op) && ++redundantOpCount >= REDUNDANT_OP_COMPACT_THRESHOLD
+                && redundantOpCount >= entries.size()) {
+            rebuildJournal();
+        }
+    }
+
+    private void closeJournal() {
+        if (journalWriter != null) {
+            try {
+                journalWriter.close();
+            } catch (final IOException ignored) {
+            }
+            journalWriter = null;
+        }
+    }
+
+    private void trimToSize() {
+        final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            final Map.Entry<String, Entry> toEvict = iterator.next();
+            final String name = toEvict.getKey();
+            size -= toEvict.getValue().length;
+            iterator.remove();
+            new File(directory, name).delete();
+            journal(REMOVE, name, -1);
+        }
+    }
+
+    private void removeEntry(final String name) {
+        final Entry previous = entries.remove(name);
+        if (previous != null) {
+            size -= previous.length;
+            new File(directory, name).delete();
+            journal(REMOVE, name, -1);
+        }
+    }
+
+    /**
+     * A stored image. Replacing an image creates a new entry, so that readers can tell whether the
+     * file they read is still the current one.
+     */
+    private static final class Entry {
+        final long length;
+
+        Entry(final long length) {
+            this.length = length;
+        }
+    }
+
+    static String nameFor(final String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes("UTF-8"));
+            final char[] name = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                name[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+                name[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+            }
+            return new String(name);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        } catch (final IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.Random;
+
+/**
+ * How network requests which failed are retried. The delay before each retry doubles from
+ * {@code initialDelayMillis} up to {@code maxDelayMillis}, and half of it is randomized so that
+ * requests which failed together do not retry in lockstep.
+ * <p/>
+ * Requests which fail while the device is offline do not spend their retries. They wait for
+ * connectivity and are retried together once it returns.
+ */
+public final class RetryPolicy {
+    /**
+     * Two retries starting at half a second, capped at ten seconds.
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(2, 500, 10000);
+
+    final int maxRetries;
+    final long initialDelayMillis;
+    final long maxDelayMillis;
+    private final Random random = new Random();
+
+    /**
+     * @param maxRetries The number of times a failed request is retried. May be zero.
+     * @param initialDelayMillis The delay before the first retry.
+     * @param maxDelayMillis The largest delay before any retry.
+     */
+    public RetryPolicy(final int maxRetries, final long initialDelayMillis, final long maxDelayMillis) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Max retries must not be negative.");
+        }
+        if (initialDelayMillis <= 0) {
+            throw new IllegalArgumentException("Initial delay must be positive.");
+        }
+        if (maxDelayMillis < initialDelayMillis) {
+            throw new IllegalArgumentException("Max delay must not be less than the initial delay.");
+        }
+        this.maxRetries = maxRetries;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Returns the jittered delay before retry number {@code attempt}, counting from zero.
+     */
+    long getDelayMillis(final int attempt) {
+        long delay = initialDelayMillis;
+        for (int i = 0; i < attempt && delay < maxDelayMillis; i++) {
+            delay <<= 1;
+        }
+        if (delay > maxDelayMillis) {
+            delay = maxDelayMillis;
+        }
+        // Keep half of the delay and spread the other half so retries drift apart.
+        final long half = delay / 2;
+        return half + (long) (random.nextDouble() * (delay - half));
+    }
+}
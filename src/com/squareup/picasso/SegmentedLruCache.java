@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A memory cache which splits its keys across independently locked least-recently used segments.
+ * <p/>
+ * A lookup from the main thread only contends with writers that happen to hash into the same
+ * segment. The segments share a single size budget: a segment which overflows it evicts its own
+ * least-recently used entries first and then spills into the others, so any entry up to the maximum
+ * size is admitted.
+ */
+public class SegmentedLruCache implements Cache {
+    static final int DEFAULT_SEGMENT_COUNT = 4;
+
+    final Segment[] segments;
+    private final int maxSize;
+    private final int segmentMask;
+    private final AtomicInteger totalSize = new AtomicInteger();
+
+    /**
+     * Receives evicted bitmaps for reuse by the decoder. Wired by {@link Picasso.Builder}.
+     */
+    BitmapPool evictionPool = BitmapPool.NONE;
+
+    /**
+     * Create a cache using an appropriate portion of the available RAM as the maximum size.
+     */
+    public SegmentedLruCache(final Context context) {
+        this(Utils.calculateMemoryCacheSize(context));
+    }
+
+    /**
+     * Create a cache with a given maximum size in bytes.
+     */
+    public SegmentedLruCache(final int maxSize) {
+        this(maxSize, DEFAULT_SEGMENT_COUNT);
+    }
+
+    /**
+     * Create a cache with a given maximum size in bytes split across {@code segmentCount} segments.
+     * The segment count is rounded up to the next power of two.
+     */
+    public SegmentedLruCache(final int maxSize, final int segmentCount) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive.");
+        }
+        if (segmentCount <= 0) {
+            throw new IllegalArgumentException("Segment count must be positive.");
+        }
+        int count = 1;
+        while (count < segmentCount) {
+            count <<= 1;
+        }
+        this.maxSize = maxSize;
+        this.segmentMask = count - 1;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @Override
+    public Bitmap get(final RequestKey key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        return segmentFor(key).get(key);
+    }
+
+    @Override
+    public void set(final RequestKey key, final Bitmap bitmap) {
+        if (key == null || bitmap == null) {
+            throw new NullPointerException("key == null || bitmap == null");
+        }
+        final int index = segmentIndex(key);
+        pool(segments[index].set(key, bitmap));
+        // The segment has nothing older left to evict. Spill into the others, one lock at a time.
+        for (int i = 1; i < segments.length && totalSize.get() > maxSize; i++) {
+            pool(segments[(index + i) & segmentMask].trimToSize(maxSize, null));
+        }
+        if (totalSize.get() > maxSize) {
+            // Only an entry larger than the whole cache is left. Drop it, as LruCache does.
+            pool(segments[index].trimToSize(maxSize, null));
+        }
+    }
+
+    /**
+     * Clear the cache.
+     */
+    public final void evictAll() {
+        for (final Segment segment : segments) {
+            pool(segment.trimToSize(-1, null)); // -1 will evict 0-sized elements
+        }
+    }
+
+    /**
+     * Returns the sum of the sizes of the entries in this cache.
+     */
+    @Override
+    public final int size() {
+        return totalSize.get();
+    }
+
+    /**
+     * Returns the maximum sum of the sizes of the entries in this cache.
+     */
+    @Override
+    public final int maxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public final void clear() {
+        evictAll();
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value.
+     */
+    public final int hitCount() {
+        int count = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.hitCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned {@code null}.
+     */
+    public final int missCount() {
+        int count = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.missCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of times {@link #set(RequestKey, Bitmap)} was called.
+     */
+    public final int putCount() {
+        int count = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.putCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        int count = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.evictionCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Hand bitmaps evicted by a segment to the pool. Called without holding the segment's lock, so
+     * that lookups in it do not wait on the pool.
+     */
+    private void pool(final List<Bitmap> evicted) {
+        if (evicted == null) {
+            return;
+        }
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0, count = evicted.size(); i < count; i++) {
+            evictionPool.put(evicted.get(i));
+        }
+    }
+
+    private Segment segmentFor(final RequestKey key) {
+        return segments[segmentIndex(key)];
+    }
+
+    private int segmentIndex(final RequestKey key) {
+        // Use the top bits of the 64-bit hash so the segment choice is independent of the low bits
+        // each segment's map buckets on.
+        return (int) (key.hash >>> 32) & segmentMask;
+    }
+
+    final class Segment {
+        final LinkedHashMap<RequestKey, Bitmap> map;
+
+        int size;
+        int putCount;
+        int evictionCount;
+        int hitCount;
+        int missCount;
+
+        Segment() {
+            this.map = new LinkedHashMap<RequestKey, Bitmap>(0, 0.75f, true);
+        }
+
+        synchronized Bitmap get(final RequestKey key) {
+            final Bitmap mapValue = map.get(key);
+            if (mapValue != null) {
+                hitCount++;
+                return mapValue;
+            }
+            missCount++;
+            return null;
+        }
+
+        /**
+         * Returns the bitmaps evicted to make room, or {@code null} if there are none.
+         */
+        synchronized List<Bitmap> set(final RequestKey key, final Bitmap bitmap) {
+            putCount++;
+            int added = Utils.getBitmapBytes(bitmap);
+            final Bitmap previous = map.put(key, bitmap);
+            if (previous != null) {
+                added -= Utils.getBitmapBytes(previous);
+            }
+            size += added;
+            totalSize.addAndGet(added);
+            return trimToSize(SegmentedLruCache.this.maxSize, key);
+        }
+
+        /**
+         * Evict the least-recently used entries of this segment until the whole cache fits
+         * {@code maxSize}, stopping at {@code keep} if it is not {@code null}. Returns the evicted
+         * bitmaps for the caller to pool once it has released the lock, or {@code null} if there
+         * are none.
+         */
+        synchronized List<Bitmap> trimToSize(final int maxSize, final RequestKey keep) {
+            List<Bitmap> evicted = null;
+            final Iterator<Map.Entry<RequestKey, Bitmap>> iterator = map.entrySet().iterator();
+            while (totalSize.get() > maxSize && iterator.hasNext()) {
+                final Map.Entry<RequestKey, Bitmap> entry = iterator.next();
+                if (entry.getKey().equals(keep)) {
+                    break;
+                }
+                final Bitmap value = entry.getValue();
+                final int bytes = Utils.getBitmapBytes(value);
+                size -= bytes;
+                totalSize.addAndGet(-bytes);
+                iterator.remove();
+                evictionCount++;
+                if (evicted == null) {
+                    evicted = new ArrayList<Bitmap>();
+                }
+                evicted.add(value);
+            }
+            if (size < 0 || (map.isEmpty() && size != 0)) {
+                throw new IllegalStateException(
+                        getClass().getName() + ".sizeOf() is reporting inconsistent results!");
+            }
+            return evicted;
+        }
+    }
+}
@@ -16,130 +16,122 @@
 package com.squareup.picasso;
 
 import android.graphics.Bitmap;
-import android.os.Handler;
-import android.os.HandlerThread;
-import android.os.Looper;
-import android.os.Message;
 
-import static android.os.Process.THREAD_PRIORITY_BACKGROUND;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
+/**
+ * Records cache, decode and latency statistics from any thread. Every counter is lock-free so that
+ * recording never blocks a worker or the main thread and never allocates.
+ */
 class Stats {
-    private static final int CACHE_HIT = 0;
-    private static final int CACHE_MISS = 1;
-    private static final int BITMAP_DECODE_FINISHED = 2;
-    private static final int BITMAP_TRANSFORMED_FINISHED = 3;
-
-    private static final String STATS_THREAD_NAME = Utils.THREAD_PREFIX + "Stats";
-
-    final HandlerThread statsThread;
     final Cache cache;
-    final Handler handler;
-
-    long cacheHits;
-    long cacheMisses;
-    long totalOriginalBitmapSize;
-    long totalTransformedBitmapSize;
-    long averageOriginalBitmapSize;
-    long averageTransformedBitmapSize;
-    int originalBitmapCount;
-    int transformedBitmapCount;
-
-    Stats(final Cache cache) {
+    final ExecutorService service;
+    final ExecutorService localService;
+
+    final StripedCounter cacheHits = new StripedCounter();
+    final StripedCounter cacheMisses = new StripedCounter();
+    final StripedCounter cacheVariantHits = new StripedCounter();
+    final StripedCounter bitmapPoolHits = new StripedCounter();
+    final StripedCounter bitmapPoolMisses = new StripedCounter();
+    final StripedCounter totalOriginalBitmapSize = new StripedCounter();
+    final StripedCounter totalTransformedBitmapSize = new StripedCounter();
+    final StripedCounter totalTransformWaitTime = new StripedCounter();
+    final StripedCounter originalBitmapCount = new StripedCounter();
+    final StripedCounter transformedBitmapCount = new StripedCounter();
+
+    final LatencyHistogram queueWaitLatency = new LatencyHistogram();
+    final LatencyHistogram downloadLatency = new LatencyHistogram();
+    final LatencyHistogram decodeLatency = new LatencyHistogram();
+    final LatencyHistogram transformLatency = new LatencyHistogram();
+    final LatencyHistogram deliveryLatency = new LatencyHistogram();
+
+    Stats(final Cache cache, final ExecutorService service, final ExecutorService localService) {
         this.cache = cache;
-        this.statsThread = new HandlerThread(STATS_THREAD_NAME, THREAD_PRIORITY_BACKGROUND);
-        this.statsThread.start();
-        this.handler = new StatsHandler(statsThread.getLooper(), this);
+        this.service = service;
+        this.localService = localService;
     }
 
-    void dispatchBitmapDecoded(final Bitmap bitmap) {
-        processBitmap(bitmap, BITMAP_DECODE_FINISHED);
+    void dispatchHunterStarted(final long queueWaitTime) {
+        queueWaitLatency.record(queueWaitTime);
     }
 
-    void dispatchBitmapTransformed(final Bitmap bitmap) {
-        processBitmap(bitmap, BITMAP_TRANSFORMED_FINISHED);
+    void dispatchDownloadFinished(final long downloadTime) {
+        downloadLatency.record(downloadTime);
     }
 
-    void dispatchCacheHit() {
-        handler.sendEmptyMessage(CACHE_HIT);
+    void dispatchBitmapDecoded(final Bitmap bitmap, final long decodeTime) {
+        originalBitmapCount.increment();
+        totalOriginalBitmapSize.add(Utils.getBitmapBytes(bitmap));
+        decodeLatency.record(decodeTime);
     }
 
-    void dispatchCacheMiss() {
-        handler.sendEmptyMessage(CACHE_MISS);
+    void dispatchBitmapTransformed(final Bitmap bitmap, final long waitTime, final long transformTime) {
+        transformedBitmapCount.increment();
+        totalTransformedBitmapSize.add(Utils.getBitmapBytes(bitmap));
+        totalTransformWaitTime.add(waitTime);
+        transformLatency.record(transformTime);
     }
 
-    void shutdown() {
-        statsThread.quit();
+    void dispatchDelivered(final long deliveryTime) {
+        deliveryLatency.record(deliveryTime);
     }
 
-    void performCacheHit() {
-        cacheHits++;
+    void dispatchCacheHit() {
+        cacheHits.increment();
     }
 
-    void performCacheMiss() {
-        cacheMisses++;
+    void dispatchCacheMiss() {
+        cacheMisses.increment();
     }
 
-    void performBitmapDecoded(final long size) {
-        originalBitmapCount++;
-        totalOriginalBitmapSize += size;
-        averageOriginalBitmapSize = getAverage(originalBitmapCount, totalOriginalBitmapSize);
+    void dispatchCacheVariantHit() {
+        cacheVariantHits.increment();
     }
 
-    void performBitmapTransformed(final long size) {
-        transformedBitmapCount++;
-        totalTransformedBitmapSize += size;
-        averageTransformedBitmapSize = getAverage(originalBitmapCount, totalTransformedBitmapSize);
+    void dispatchBitmapPoolHit() {
+        bitmapPoolHits.increment();
     }
 
-    synchronized StatsSnapshot createSnapshot() {
-        return new StatsSnapshot(cache.maxSize(), cache.size(), cacheHits, cacheMisses,
-                totalOriginalBitmapSize, totalTransformedBitmapSize, averageOriginalBitmapSize,
-                averageTransformedBitmapSize, originalBitmapCount, transformedBitmapCount,
-                System.currentTimeMillis());
+    void dispatchBitmapPoolMiss() {
+        bitmapPoolMisses.increment();
     }
 
-    private void processBitmap(final Bitmap bitmap, final int what) {
-        // Never send bitmaps to the handler as they could be recycled before we process them.
-        final int bitmapSize = Utils.getBitmapBytes(bitmap);
-        handler.sendMessage(handler.obtainMessage(what, bitmapSize, 0));
+    StatsSnapshot createSnapshot() {
+        final long originalCount = originalBitmapCount.sum();
+        final long transformedCount = transformedBitmapCount.sum();
+        final long originalSize = totalOriginalBitmapSize.sum();
+        final long transformedSize = totalTransformedBitmapSize.sum();
+        final long transformWaitTime = totalTransformWaitTime.sum();
+        final int threadCount = getThreadCount(service);
+        final int queueDepth = getQueueDepth(service);
+        // A shared executor is reported once, as the network lane.
+        final int localThreadCount = localService != service ? getThreadCount(localService) : 0;
+        final int localQueueDepth = localService != service ? getQueueDepth(localService) : 0;
+        long bandwidth = 0;
+        long timeToFirstByte = 0;
+        if (service instanceof PicassoExecutorService) {
+            bandwidth = ((PicassoExecutorService) service).getMeasuredBandwidth();
+            timeToFirstByte = ((PicassoExecutorService) service).getMeasuredTimeToFirstByte();
+        }
+        return new StatsSnapshot(cache.maxSize(), cache.size(), cacheHits.sum(), cacheMisses.sum(),
+                cacheVariantHits.sum(), originalSize, transformedSize, getAverage(originalCount, originalSize),
+                getAverage(transformedCount, transformedSize), (int) originalCount, (int) transformedCount,
+                transformWaitTime, getAverage(transformedCount, transformWaitTime), bitmapPoolHits.sum(),
+                bitmapPoolMisses.sum(), threadCount, queueDepth, localThreadCount, localQueueDepth, bandwidth,
+                timeToFirstByte, queueWaitLatency.snapshot(), downloadLatency.snapshot(), decodeLatency.snapshot(),
+                transformLatency.snapshot(), deliveryLatency.snapshot(), System.currentTimeMillis());
     }
 
-    private static long getAverage(final int count, final long totalSize) {
-        return totalSize / count;
+    private static int getThreadCount(final ExecutorService executor) {
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getMaximumPoolSize() : 0;
     }
 
-    private static class StatsHandler extends Handler {
-
-        private final Stats stats;
-
-        public StatsHandler(final Looper looper, final Stats stats) {
-            super(looper);
-            this.stats = stats;
-        }
+    private static int getQueueDepth(final ExecutorService executor) {
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+    }
 
-        @Override
-        public void handleMessage(final Message msg) {
-            switch (msg.what) {
-                case CACHE_HIT:
-                    stats.performCacheHit();
-                    break;
-                case CACHE_MISS:
-                    stats.performCacheMiss();
-                    break;
-                case BITMAP_DECODE_FINISHED:
-                    stats.performBitmapDecoded(msg.arg1);
-                    break;
-                case BITMAP_TRANSFORMED_FINISHED:
-                    stats.performBitmapTransformed(msg.arg1);
-                    break;
-                default:
-                    Picasso.HANDLER.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            throw new AssertionError("Unhandled stats message." + msg.what);
-                        }
-                    });
-            }
-        }
+    private static long getAverage(final long count, final long total) {
+        return count == 0 ? 0 : total / count;
     }
-}
\ No newline at end of file
+}
@@ -30,29 +30,67 @@ public class StatsSnapshot {
     public final int size;
     public final long cacheHits;
     public final long cacheMisses;
+    public final long cacheVariantHits;
     public final long totalOriginalBitmapSize;
     public final long totalTransformedBitmapSize;
     public final long averageOriginalBitmapSize;
     public final long averageTransformedBitmapSize;
     public final int originalBitmapCount;
     public final int transformedBitmapCount;
+    public final long totalTransformWaitTime;
+    public final long averageTransformWaitTime;
+    public final long bitmapPoolHits;
+    public final long bitmapPoolMisses;
+    public final int threadCount;
+    public final int queueDepth;
+    public final int localThreadCount;
+    public final int localQueueDepth;
+    public final long downloadBandwidth;
+    public final long averageTimeToFirstByte;
+    public final Latency queueWaitLatency;
+    public final Latency downloadLatency;
+    public final Latency decodeLatency;
+    public final Latency transformLatency;
+    public final Latency deliveryLatency;
 
     public final long timeStamp;
 
     public StatsSnapshot(final int maxSize, final int size, final long cacheHits, final long cacheMisses,
+                         final long cacheVariantHits,
                          final long totalOriginalBitmapSize, final long totalTransformedBitmapSize, final long averageOriginalBitmapSize,
                          final long averageTransformedBitmapSize, final int originalBitmapCount, final int transformedBitmapCount,
-                         final long timeStamp) {
+                         final long totalTransformWaitTime, final long averageTransformWaitTime,
+                         final long bitmapPoolHits, final long bitmapPoolMisses, final int threadCount,
+                         final int queueDepth, final int localThreadCount, final int localQueueDepth,
+                         final long downloadBandwidth, final long averageTimeToFirstByte, final Latency queueWaitLatency,
+                         final Latency downloadLatency, final Latency decodeLatency, final Latency transformLatency,
+                         final Latency deliveryLatency, final long timeStamp) {
         this.maxSize = maxSize;
         this.size = size;
         this.cacheHits = cacheHits;
         this.cacheMisses = cacheMisses;
+        this.cacheVariantHits = cacheVariantHits;
         this.totalOriginalBitmapSize = totalOriginalBitmapSize;
         this.totalTransformedBitmapSize = totalTransformedBitmapSize;
         this.averageOriginalBitmapSize = averageOriginalBitmapSize;
         this.averageTransformedBitmapSize = averageTransformedBitmapSize;
         this.originalBitmapCount = originalBitmapCount;
         this.transformedBitmapCount = transformedBitmapCount;
+        this.totalTransformWaitTime = totalTransformWaitTime;
+        this.averageTransformWaitTime = averageTransformWaitTime;
+        this.bitmapPoolHits = bitmapPoolHits;
+        this.bitmapPoolMisses = bitmapPoolMisses;
+        this.threadCount = threadCount;
+        this.queueDepth = queueDepth;
+        this.localThreadCount = localThreadCount;
+        this.localQueueDepth = localQueueDepth;
+        this.downloadBandwidth = downloadBandwidth;
+        this.averageTimeToFirstByte = averageTimeToFirstByte;
+        this.queueWaitLatency = queueWaitLatency;
+        this.downloadLatency = downloadLatency;
+        this.decodeLatency = decodeLatency;
+        this.transformLatency = transformLatency;
+        this.deliveryLatency = deliveryLatency;
         this.timeStamp = timeStamp;
     }
 
@@ -81,6 +119,8 @@ public class StatsSnapshot {
         writer.println(cacheHits);
         writer.print("  Cache Misses: ");
         writer.println(cacheMisses);
+        writer.print("  Derived From Cached Variant: ");
+        writer.println(cacheVariantHits);
         writer.println("Bitmap Stats");
         writer.print("  Total Bitmaps Decoded: ");
         writer.println(originalBitmapCount);
@@ -94,10 +134,43 @@ public class StatsSnapshot {
         writer.println(averageOriginalBitmapSize);
         writer.print("  Average Transformed Bitmap Size: ");
         writer.println(averageTransformedBitmapSize);
+        writer.print("  Total Transform Wait Time: ");
+        writer.println(totalTransformWaitTime);
+        writer.print("  Average Transform Wait Time: ");
+        writer.println(averageTransformWaitTime);
+        writer.println("Bitmap Pool Stats");
+        writer.print("  Pool Hits: ");
+        writer.println(bitmapPoolHits);
+        writer.print("  Pool Misses: ");
+        writer.println(bitmapPoolMisses);
+        writer.println("Executor Stats");
+        writer.print("  Thread Count: ");
+        writer.println(threadCount);
+        writer.print("  Queue Depth: ");
+        writer.println(queueDepth);
+        writer.print("  Local Thread Count: ");
+        writer.println(localThreadCount);
+        writer.print("  Local Queue Depth: ");
+        writer.println(localQueueDepth);
+        writer.print("  Download Bandwidth (bytes/s): ");
+        writer.println(downloadBandwidth);
+        writer.print("  Average Time To First Byte (ms): ");
+        writer.println(averageTimeToFirstByte);
+        writer.println("Latency Stats (ms)");
+        dumpLatency(writer, "  Queue Wait: ", queueWaitLatency);
+        dumpLatency(writer, "  Download: ", downloadLatency);
+        dumpLatency(writer, "  Decode: ", decodeLatency);
+        dumpLatency(writer, "  Transform: ", transformLatency);
+        dumpLatency(writer, "  Delivery: ", deliveryLatency);
         writer.println("===============END PICASSO STATS ===============");
         writer.flush();
     }
 
+    private static void dumpLatency(final PrintWriter writer, final String label, final Latency latency) {
+        writer.print(label);
+        writer.println(latency);
+    }
+
     @Override
     public String toString() {
         return "StatsSnapshot{"
@@ -109,6 +182,8 @@ public class StatsSnapshot {
                 + cacheHits
                 + ", cacheMisses="
                 + cacheMisses
+                + ", cacheVariantHits="
+                + cacheVariantHits
                 + ", totalOriginalBitmapSize="
                 + totalOriginalBitmapSize
                 + ", totalTransformedBitmapSize="
@@ -121,8 +196,63 @@ public class StatsSnapshot {
                 + originalBitmapCount
                 + ", transformedBitmapCount="
                 + transformedBitmapCount
+                + ", totalTransformWaitTime="
+                + totalTransformWaitTime
+                + ", averageTransformWaitTime="
+                + averageTransformWaitTime
+                + ", bitmapPoolHits="
+                + bitmapPoolHits
+                + ", bitmapPoolMisses="
+                + bitmapPoolMisses
+                + ", threadCount="
+                + threadCount
+                + ", queueDepth="
+                + queueDepth
+                + ", localThreadCount="
+                + localThreadCount
+                + ", localQueueDepth="
+                + localQueueDepth
+                + ", downloadBandwidth="
+                + downloadBandwidth
+                + ", averageTimeToFirstByte="
+                + averageTimeToFirstByte
+                + ", queueWaitLatency="
+                + queueWaitLatency
+                + ", downloadLatency="
+                + downloadLatency
+                + ", decodeLatency="
+                + decodeLatency
+                + ", transformLatency="
+                + transformLatency
+                + ", deliveryLatency="
+                + deliveryLatency
                 + ", timeStamp="
                 + timeStamp
                 + '}';
     }
-}
\ No newline at end of file
+
+    /**
+     * The distribution of one stage's latency in milliseconds. Percentiles are bucketed and may
+     * overstate the true value by up to a factor of two; {@link #max} is exact.
+     */
+    public static final class Latency {
+        public final long count;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+        public final long max;
+
+        public Latency(final long count, final long p50, final long p90, final long p99, final long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + " p50=" + p50 + " p90=" + p90 + " p99=" + p99 + " max=" + max;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free counter which spreads concurrent writers across cells so that threads recording at
+ * the same time rarely touch the same cache line. Reads sum every cell and are only as consistent
+ * as the writes that finished before them.
+ */
+final class StripedCounter {
+    /**
+     * Longs per cell, so that neighbouring cells never share a 64 byte cache line.
+     */
+    private static final int PADDING = 8;
+    private static final int STRIPE_COUNT = stripeCount(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPE_COUNT * PADDING);
+
+    void increment() {
+        add(1);
+    }
+
+    void add(final long value) {
+        cells.getAndAdd(stripe() * PADDING, value);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    private static int stripe() {
+        int h = (int) Thread.currentThread().getId();
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return h & (STRIPE_COUNT - 1);
+    }
+
+    private static int stripeCount(final int processors) {
+        // Twice the cores, rounded up to a power of two, keeps collisions rare on the worker pool.
+        int count = 1;
+        while (count < processors * 2) {
+            count <<= 1;
+        }
+        return count;
+    }
+}
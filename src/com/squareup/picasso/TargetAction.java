@@ -19,8 +19,9 @@ import android.graphics.Bitmap;
 
 final class TargetAction extends Action<Target> {
 
-    TargetAction(final Picasso picasso, final Target target, final Request data, final boolean skipCache, final String key) {
-        super(picasso, target, data, skipCache, false, 0, null, key);
+    TargetAction(final Picasso picasso, final Target target, final Request data, final boolean skipCache, final RequestKey key,
+                 final Picasso.Priority priority, final Object tag) {
+        super(picasso, target, data, skipCache, false, 0, null, key, priority, tag);
     }
 
     @Override
@@ -71,7 +71,9 @@ public class UrlConnectionDownloader implements Downloader {
 
         final boolean fromCache = parseResponseSourceHeader(connection.getHeaderField(RESPONSE_SOURCE));
 
-        return new Response(connection.getInputStream(), fromCache);
+        final long contentLength = connection.getHeaderFieldInt("Content-Length", -1);
+
+        return new Response(connection.getInputStream(), fromCache, contentLength);
     }
 
     private static void installCacheIfNeeded(final Context context) {
@@ -45,30 +45,9 @@ final class Utils {
     static final int DEFAULT_READ_TIMEOUT = 20 * 1000; // 20s
     static final int DEFAULT_CONNECT_TIMEOUT = 15 * 1000; // 15s
     private static final String PICASSO_CACHE = "picasso-cache";
-    private static final int KEY_PADDING = 50; // Determined by exact science.
     private static final int MIN_DISK_CACHE_SIZE = 5 * 1024 * 1024; // 5MB
     private static final int MAX_DISK_CACHE_SIZE = 50 * 1024 * 1024; // 50MB
 
-    /**
-     * Thread confined to main thread for key creation.
-     */
-    static final StringBuilder MAIN_THREAD_KEY_BUILDER = new StringBuilder();
-
-    /* WebP file header
-       0                   1                   2                   3
-       0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
-      +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
-      |      'R'      |      'I'      |      'F'      |      'F'      |
-      +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
-      |                           File Size                           |
-      +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
-      |      'W'      |      'E'      |      'B'      |      'P'      |
-      +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
-    */
-    private static final int WEBP_FILE_HEADER_SIZE = 12;
-    private static final String WEBP_FILE_HEADER_RIFF = "RIFF";
-    private static final String WEBP_FILE_HEADER_WEBP = "WEBP";
-
     private Utils() {
         // No instances.
     }
@@ -86,55 +65,22 @@ final class Utils {
         return result;
     }
 
+    /**
+     * Returns a number which changes whenever the pixels of {@code bitmap} do, or {@code 0} where
+     * the platform cannot tell. Bitmaps are only decoded into again from KitKat on.
+     */
+    static int getBitmapGeneration(final Bitmap bitmap) {
+        return SDK_INT >= HONEYCOMB_MR1 ? BitmapHoneycombMR1.getGenerationId(bitmap) : 0;
+    }
+
     static void checkNotMain() {
         if (Looper.getMainLooper().getThread() == Thread.currentThread()) {
             throw new IllegalStateException("Method call should not happen from the main thread.");
         }
     }
 
-    static String createKey(final Request data) {
-        final String result = createKey(data, MAIN_THREAD_KEY_BUILDER);
-        MAIN_THREAD_KEY_BUILDER.setLength(0);
-        return result;
-    }
-
-    static String createKey(final Request data, final StringBuilder builder) {
-        if (data.uri != null) {
-            final String path = data.uri.toString();
-            builder.ensureCapacity(path.length() + KEY_PADDING);
-            builder.append(path);
-        } else {
-            builder.ensureCapacity(KEY_PADDING);
-            builder.append(data.resourceId);
-        }
-        builder.append('\n');
-
-        if (data.rotationDegrees != 0) {
-            builder.append("rotation:").append(data.rotationDegrees);
-            if (data.hasRotationPivot) {
-                builder.append('@').append(data.rotationPivotX).append('x').append(data.rotationPivotY);
-            }
-            builder.append('\n');
-        }
-        if (data.targetWidth != 0) {
-            builder.append("resize:").append(data.targetWidth).append('x').append(data.targetHeight);
-            builder.append('\n');
-        }
-        if (data.centerCrop) {
-            builder.append("centerCrop\n");
-        } else if (data.centerInside) {
-            builder.append("centerInside\n");
-        }
-
-        if (data.transformations != null) {
-            //noinspection ForLoopReplaceableByForEach
-            for (int i = 0, count = data.transformations.size(); i < count; i++) {
-                builder.append(data.transformations.get(i).key());
-                builder.append('\n');
-            }
-        }
-
-        return builder.toString();
+    static RequestKey createKey(final Request data) {
+        return new RequestKey(data);
     }
 
     static void closeQuietly(final InputStream is) {
@@ -209,6 +155,11 @@ final class Utils {
         return 1024 * 1024 * memoryClass / 7;
     }
 
+    static long calculateTransformMemoryBudget() {
+        // Target ~12% of the maximum heap for pixels held by in-flight transformations.
+        return Runtime.getRuntime().maxMemory() / 8;
+    }
+
     static boolean isAirplaneModeOn(final Context context) {
         final ContentResolver contentResolver = context.getContentResolver();
         return Settings.System.getInt(contentResolver, AIRPLANE_MODE_ON, 0) != 0;
@@ -218,27 +169,6 @@ final class Utils {
         return context.checkCallingOrSelfPermission(permission) == PackageManager.PERMISSION_GRANTED;
     }
 
-    static byte[] toByteArray(final InputStream input) throws IOException {
-        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        final byte[] buffer = new byte[1024 * 4];
-        int n;
-        while (-1 != (n = input.read(buffer))) {
-            byteArrayOutputStream.write(buffer, 0, n);
-        }
-        return byteArrayOutputStream.toByteArray();
-    }
-
-    static boolean isWebPFile(final InputStream stream) throws IOException {
-        final byte[] fileHeaderBytes = new byte[WEBP_FILE_HEADER_SIZE];
-        boolean isWebPFile = false;
-        if (stream.read(fileHeaderBytes, 0, WEBP_FILE_HEADER_SIZE) == WEBP_FILE_HEADER_SIZE) {
-            // If a file's header starts with RIFF and end with WEBP, the file is a WebP file
-            isWebPFile = WEBP_FILE_HEADER_RIFF.equals(new String(fileHeaderBytes, 0, 4, "US-ASCII"))
-                    && WEBP_FILE_HEADER_WEBP.equals(new String(fileHeaderBytes, 8, 4, "US-ASCII"));
-        }
-        return isWebPFile;
-    }
-
     static int getResourceId(final Resources resources, final Request data) throws FileNotFoundException {
         if (data.resourceId != 0 || data.uri == null) {
             return data.resourceId;
@@ -314,6 +244,10 @@ final class Utils {
         static int getByteCount(final Bitmap bitmap) {
             return bitmap.getByteCount();
         }
+
+        static int getGenerationId(final Bitmap bitmap) {
+            return bitmap.getGenerationId();
+        }
     }
 
     private static class OkHttpLoaderCreator {
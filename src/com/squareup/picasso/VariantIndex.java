@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A secondary index over the memory cache from an image source to the cached variants which are
+ * the whole source scaled uniformly. A request that misses the cache can be derived from the
+ * smallest such variant that is large enough instead of being decoded again.
+ * <p/>
+ * Only keys and dimensions are held here. The cache stays the owner of every bitmap, so entries it
+ * has evicted are dropped the next time they are looked up.
+ */
+final class VariantIndex {
+    static final int MAX_SOURCES = 256;
+    static final int MAX_VARIANTS_PER_SOURCE = 4;
+
+    private final LinkedHashMap<Object, List<Variant>> sources =
+            new LinkedHashMap<Object, List<Variant>>(0, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Object, List<Variant>> eldest) {
+                    return size() > MAX_SOURCES;
+                }
+            };
+
+    /**
+     * Record that {@code bitmap}, cached under {@code key}, is a uniformly scaled copy of its source.
+     */
+    synchronized void put(final RequestKey key, final Bitmap bitmap) {
+        final Object source = sourceOf(key);
+        List<Variant> variants = sources.get(source);
+        if (variants == null) {
+            variants = new ArrayList<Variant>(MAX_VARIANTS_PER_SOURCE);
+            sources.put(source, variants);
+        }
+        for (int i = variants.size() - 1; i >= 0; i--) {
+            if (variants.get(i).key.equals(key)) {
+                variants.remove(i);
+            }
+        }
+        variants.add(new Variant(key, bitmap.getWidth(), bitmap.getHeight(), key.targetWidth == 0));
+        if (variants.size() > MAX_VARIANTS_PER_SOURCE) {
+            // The smallest variant serves the fewest requests, even when it is the newest.
+            int smallest = 0;
+            for (int i = 1; i < variants.size(); i++) {
+                if (variants.get(i).area() < variants.get(smallest).area()) {
+                    smallest = i;
+                }
+            }
+            variants.remove(smallest);
+        }
+    }
+
+    /**
+     * Returns the smallest cached variant from which {@code data} can be derived without upscaling,
+     * or {@code null}.
+     */
+    Bitmap find(final Request data, final RequestKey key, final Cache cache) {
+        if (data.hasRotationPivot) {
+            // Pivots are in the coordinates of the decoded bitmap and would move with its size.
+            return null;
+        }
+        final List<Variant> candidates;
+        synchronized (this) {
+            final List<Variant> variants = sources.get(sourceOf(key));
+            if (variants == null) {
+                return null;
+            }
+            candidates = new ArrayList<Variant>(variants);
+        }
+
+        Variant best = null;
+        Bitmap bestBitmap = null;
+        for (final Variant variant : candidates) {
+            if (!variant.canServe(data)) {
+                continue;
+            }
+            if (best != null && variant.area() >= best.area()) {
+                continue;
+            }
+            final Bitmap bitmap = cache.get(variant.key);
+            if (bitmap == null || bitmap.isRecycled()) {
+                remove(variant);
+                continue;
+            }
+            if (data.config != null && bitmap.getConfig() != data.config) {
+                continue;
+            }
+            best = variant;
+            bestBitmap = bitmap;
+        }
+        return bestBitmap;
+    }
+
+    synchronized void clear() {
+        sources.clear();
+    }
+
+    private synchronized void remove(final Variant variant) {
+        final Object source = sourceOf(variant.key);
+        final List<Variant> variants = sources.get(source);
+        if (variants == null) {
+            return;
+        }
+        final Iterator<Variant> iterator = variants.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == variant) {
+                iterator.remove();
+            }
+        }
+        if (variants.isEmpty()) {
+            sources.remove(source);
+        }
+    }
+
+    /**
+     * Whether {@code data} can be derived from the variant a request for {@code variant} will
+     * produce, before its size is known. A variant centered inside its target only fills one of
+     * the target dimensions, so only requests centered inside a target no larger are sure to fit.
+     */
+    static boolean canServe(final Request variant, final Request data) {
+        if (!variant.hasSize()) {
+            return true;
+        }
+        return data.hasSize() && data.centerInside
+                && data.targetWidth <= variant.targetWidth
+                && data.targetHeight <= variant.targetHeight;
+    }
+
+    static Object sourceOf(final RequestKey key) {
+        return key.uri != null ? key.uri : Integer.valueOf(key.resourceId);
+    }
+
+    static final class Variant {
+        final RequestKey key;
+        final int width;
+        final int height;
+        final boolean fullSize;
+
+        Variant(final RequestKey key, final int width, final int height, final boolean fullSize) {
+            this.key = key;
+            this.width = width;
+            this.height = height;
+            this.fullSize = fullSize;
+        }
+
+        long area() {
+            return (long) width * height;
+        }
+
+        /**
+         * Whether {@code data} can be produced from this variant without scaling it up. A variant
+         * decoded at full size is as good as decoding the source again.
+         */
+        boolean canServe(final Request data) {
+            if (fullSize) {
+                return true;
+            }
+            if (!data.hasSize()) {
+                return false;
+            }
+            final int targetWidth = data.targetWidth;
+            final int targetHeight = data.targetHeight;
+            if (data.centerInside) {
+                return targetWidth <= width || targetHeight <= height;
+            }
+            return targetWidth <= width && targetHeight <= height;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.app;
+
+public class ActivityManager {
+    private final int memoryClass;
+    private final boolean lowRamDevice;
+
+    public ActivityManager() {
+        this(64, false);
+    }
+
+    public ActivityManager(final int memoryClass, final boolean lowRamDevice) {
+        this.memoryClass = memoryClass;
+        this.lowRamDevice = lowRamDevice;
+    }
+
+    public int getMemoryClass() {
+        return memoryClass;
+    }
+
+    public int getLargeMemoryClass() {
+        return memoryClass * 2;
+    }
+
+    public boolean isLowRamDevice() {
+        return lowRamDevice;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.content;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
+import android.net.Uri;
+
+/**
+ * JVM shadow of the Android content resolver. Only {@code file} URIs can be opened; there are no
+ * providers to query.
+ */
+public class ContentResolver {
+    public static final String SCHEME_CONTENT = "content";
+    public static final String SCHEME_FILE = "file";
+    public static final String SCHEME_ANDROID_RESOURCE = "android.resource";
+
+    public InputStream openInputStream(final Uri uri) throws FileNotFoundException {
+        if (!SCHEME_FILE.equals(uri.getScheme())) {
+            throw new FileNotFoundException("No content provider: " + uri);
+        }
+        return new FileInputStream(new File(uri.getPath()));
+    }
+
+    public Cursor query(final Uri uri, final String[] projection, final String selection,
+                        final String[] selectionArgs, final String sortOrder) {
+        return null;
+    }
+
+    public AssetFileDescriptor openAssetFileDescriptor(final Uri uri, final String mode)
+            throws FileNotFoundException {
+        if (!SCHEME_FILE.equals(uri.getScheme())) {
+            throw new FileNotFoundException("No content provider: " + uri);
+        }
+        return new AssetFileDescriptor(new File(uri.getPath()));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.content;
+
+import java.io.File;
+
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+
+public abstract class Context {
+    public static final String ACTIVITY_SERVICE = "activity";
+    public static final String CONNECTIVITY_SERVICE = "connectivity";
+
+    public abstract Context getApplicationContext();
+
+    public abstract Object getSystemService(String name);
+
+    public abstract ApplicationInfo getApplicationInfo();
+
+    public abstract File getCacheDir();
+
+    public abstract ContentResolver getContentResolver();
+
+    public abstract int checkCallingOrSelfPermission(String permission);
+
+    public abstract PackageManager getPackageManager();
+
+    public abstract Resources getResources();
+
+    public abstract AssetManager getAssets();
+
+    public abstract Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter);
+
+    public abstract void unregisterReceiver(BroadcastReceiver receiver);
+}
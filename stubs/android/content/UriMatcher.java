@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.content;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.net.Uri;
+
+/**
+ * JVM shadow of the Android URI matcher, supporting the {@code #} and {@code *} wildcards.
+ */
+public class UriMatcher {
+    public static final int NO_MATCH = -1;
+
+    private final int rootCode;
+    private final List<String[]> patterns = new ArrayList<String[]>();
+    private final List<Integer> codes = new ArrayList<Integer>();
+
+    public UriMatcher(final int code) {
+        this.rootCode = code;
+    }
+
+    public void addURI(final String authority, final String path, final int code) {
+        final String trimmed = path == null ? "" : path.startsWith("/") ? path.substring(1) : path;
+        final String[] segments = trimmed.isEmpty() ? new String[0] : trimmed.split("/");
+        final String[] pattern = new String[segments.length + 1];
+        pattern[0] = authority;
+        System.arraycopy(segments, 0, pattern, 1, segments.length);
+        patterns.add(pattern);
+        codes.add(code);
+    }
+
+    public int match(final Uri uri) {
+        final List<String> segments = uri.getPathSegments();
+        for (int i = 0; i < patterns.size(); i++) {
+            final String[] pattern = patterns.get(i);
+            if (pattern.length - 1 != segments.size() || !pattern[0].equals(uri.getAuthority())) {
+                continue;
+            }
+            boolean matches = true;
+            for (int j = 1; j < pattern.length && matches; j++) {
+                final String segment = segments.get(j - 1);
+                if ("#".equals(pattern[j])) {
+                    matches = isNumber(segment);
+                } else if (!"*".equals(pattern[j])) {
+                    matches = pattern[j].equals(segment);
+                }
+            }
+            if (matches) {
+                return codes.get(i);
+            }
+        }
+        return rootCode;
+    }
+
+    private static boolean isNumber(final String segment) {
+        if (segment.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
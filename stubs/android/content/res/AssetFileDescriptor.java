@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.content.res;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+public class AssetFileDescriptor {
+    private final File file;
+
+    public AssetFileDescriptor(final File file) {
+        this.file = file;
+    }
+
+    public long getLength() {
+        return file.length();
+    }
+
+    public FileInputStream createInputStream() throws IOException {
+        return new FileInputStream(file);
+    }
+
+    public void close() throws IOException {
+    }
+}
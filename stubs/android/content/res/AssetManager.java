@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.content.res;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * JVM shadow of the Android asset manager, reading assets from a directory.
+ */
+public class AssetManager {
+    private final File root;
+
+    public AssetManager(final File root) {
+        this.root = root;
+    }
+
+    public InputStream open(final String fileName) throws IOException {
+        return new FileInputStream(new File(root, fileName));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.content.res;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import android.graphics.drawable.Drawable;
+import android.util.DisplayMetrics;
+
+/**
+ * JVM shadow of the Android resources. Raw resources are registered with {@link #putRaw}.
+ */
+public class Resources {
+    private final DisplayMetrics metrics;
+    private final Map<Integer, byte[]> raw = new HashMap<Integer, byte[]>();
+
+    public Resources() {
+        this(new DisplayMetrics());
+    }
+
+    public Resources(final DisplayMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public DisplayMetrics getDisplayMetrics() {
+        return metrics;
+    }
+
+    public int getDimensionPixelSize(final int id) {
+        return 0;
+    }
+
+    public Drawable getDrawable(final int id) {
+        return null;
+    }
+
+    public int getIdentifier(final String name, final String defType, final String defPackage) {
+        return 0;
+    }
+
+    public synchronized void putRaw(final int id, final byte[] data) {
+        raw.put(id, data);
+    }
+
+    public synchronized InputStream openRawResource(final int id) {
+        final byte[] data = raw.get(id);
+        if (data == null) {
+            throw new NotFoundException("Resource ID #0x" + Integer.toHexString(id));
+        }
+        return new ByteArrayInputStream(data);
+    }
+
+    public static class NotFoundException extends RuntimeException {
+        public NotFoundException(final String name) {
+            super(name);
+        }
+    }
+}
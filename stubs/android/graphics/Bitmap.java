@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.graphics;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JVM shadow of the Android bitmap. Pixels are held in a heap array of the size Android would
+ * allocate, but never drawn. {@link #compress} writes a small header which the shadow
+ * {@link BitmapFactory} reads back.
+ */
+public final class Bitmap {
+    public static final int DENSITY_NONE = 0;
+
+    static final int DEFAULT_DENSITY = 160;
+    static final int COMPRESSED_MAGIC = 0x53484457; // "SHDW"
+
+    public enum Config {
+        ALPHA_8(1),
+        RGB_565(2),
+        ARGB_4444(2),
+        ARGB_8888(4);
+
+        final int bytesPerPixel;
+
+        Config(final int bytesPerPixel) {
+            this.bytesPerPixel = bytesPerPixel;
+        }
+    }
+
+    public enum CompressFormat {
+        JPEG,
+        PNG,
+        WEBP
+    }
+
+    private int width;
+    private int height;
+    private Config config;
+    private byte[] pixels;
+    private final int allocationByteCount;
+    private final boolean mutable;
+    private boolean recycled;
+    private boolean hasAlpha;
+    private int density = DEFAULT_DENSITY;
+    private int generationId;
+
+    Bitmap(final int width, final int height, final Config config, final boolean mutable) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be > 0");
+        }
+        this.width = width;
+        this.height = height;
+        this.config = config;
+        this.mutable = mutable;
+        this.hasAlpha = config != Config.RGB_565;
+        this.allocationByteCount = width * height * config.bytesPerPixel;
+        this.pixels = new byte[allocationByteCount];
+        BitmapMemory.allocate(allocationByteCount);
+    }
+
+    public static Bitmap createBitmap(final int width, final int height, final Config config) {
+        return new Bitmap(width, height, config, true);
+    }
+
+    public static Bitmap createBitmap(final Bitmap source, final int x, final int y, final int width, final int height,
+                                      final Matrix m, final boolean filter) {
+        source.checkRecycled("Can't create a bitmap from a recycled bitmap");
+        if (x < 0 || y < 0 || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("x, y must be >= 0 and width, height must be > 0");
+        }
+        if (x + width > source.width || y + height > source.height) {
+            throw new IllegalArgumentException("x + width and y + height must be <= the source size");
+        }
+        if (!source.mutable && x == 0 && y == 0 && width == source.width && height == source.height
+                && (m == null || m.isIdentity())) {
+            return source;
+        }
+
+        int newWidth = width;
+        int newHeight = height;
+        Config newConfig = source.config;
+        boolean newHasAlpha = source.hasAlpha;
+        if (m != null && !m.isIdentity()) {
+            final RectF bounds = new RectF(0, 0, width, height);
+            final boolean rectStaysRect = m.mapRect(bounds);
+            newWidth = Math.round(bounds.width());
+            newHeight = Math.round(bounds.height());
+            if (!rectStaysRect) {
+                newConfig = Config.ARGB_8888;
+                newHasAlpha = true;
+            }
+        }
+        final Bitmap bitmap = new Bitmap(newWidth, newHeight, newConfig, false);
+        bitmap.hasAlpha = newHasAlpha;
+        bitmap.density = source.density;
+        return bitmap;
+    }
+
+    public static Bitmap createScaledBitmap(final Bitmap source, final int width, final int height,
+                                            final boolean filter) {
+        final Matrix matrix = new Matrix();
+        matrix.setScale(width / (float) source.width, height / (float) source.height);
+        return createBitmap(source, 0, 0, source.width, source.height, matrix, filter);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRowBytes() {
+        return width * config.bytesPerPixel;
+    }
+
+    public int getByteCount() {
+        return getRowBytes() * height;
+    }
+
+    public int getAllocationByteCount() {
+        return allocationByteCount;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public boolean isMutable() {
+        return mutable;
+    }
+
+    public boolean hasAlpha() {
+        return hasAlpha;
+    }
+
+    public void setHasAlpha(final boolean hasAlpha) {
+        this.hasAlpha = hasAlpha;
+    }
+
+    public int getDensity() {
+        return density;
+    }
+
+    public void setDensity(final int density) {
+        this.density = density;
+    }
+
+    public int getGenerationId() {
+        return generationId;
+    }
+
+    public boolean isRecycled() {
+        return recycled;
+    }
+
+    public void recycle() {
+        if (!recycled) {
+            recycled = true;
+            pixels = null;
+            BitmapMemory.free(allocationByteCount);
+        }
+    }
+
+    public Bitmap copy(final Config config, final boolean isMutable) {
+        checkRecycled("Can't copy a recycled bitmap");
+        final Bitmap copy = new Bitmap(width, height, config, isMutable);
+        copy.hasAlpha = hasAlpha;
+        copy.density = density;
+        return copy;
+    }
+
+    public void eraseColor(final int color) {
+        checkRecycled("Can't erase a recycled bitmap");
+        if (!mutable) {
+            throw new IllegalStateException("cannot erase immutable bitmaps");
+        }
+        generationId++;
+    }
+
+    public void reconfigure(final int width, final int height, final Config config) {
+        checkRecycled("Can't call reconfigure() on a recycled bitmap");
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be > 0");
+        }
+        if (!mutable) {
+            throw new IllegalStateException("only mutable bitmaps may be reconfigured");
+        }
+        if (width * height * config.bytesPerPixel > allocationByteCount) {
+            throw new IllegalArgumentException("Bitmap not large enough to support new configuration");
+        }
+        this.width = width;
+        this.height = height;
+        this.config = config;
+        this.hasAlpha = config != Config.RGB_565;
+        generationId++;
+    }
+
+    /**
+     * Writes a header describing this bitmap. The quality is ignored.
+     */
+    public boolean compress(final CompressFormat format, final int quality, final OutputStream stream) {
+        checkRecycled("Can't compress a recycled bitmap");
+        if (quality < 0 || quality > 100) {
+            throw new IllegalArgumentException("quality must be 0..100");
+        }
+        try {
+            final DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(COMPRESSED_MAGIC);
+            out.writeByte(format.ordinal());
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeBoolean(hasAlpha && format != CompressFormat.JPEG);
+            out.flush();
+            return true;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    private void checkRecycled(final String message) {
+        if (recycled) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Bitmap(" + width + "x" + height + " " + config + ")";
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.graphics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+import android.content.res.Resources;
+
+/**
+ * JVM shadow of the Android bitmap decoder. Only image headers are read: JPEG, PNG and GIF through
+ * {@link ImageIO}, WebP by hand, and the output of {@link Bitmap#compress}. Sampling, density
+ * scaling and {@link Options#inBitmap} reuse follow the KitKat decoder.
+ */
+public class BitmapFactory {
+
+    public static class Options {
+        public boolean inJustDecodeBounds;
+        public int inSampleSize;
+        public Bitmap.Config inPreferredConfig = Bitmap.Config.ARGB_8888;
+        public int outWidth;
+        public int outHeight;
+        public String outMimeType;
+        public Bitmap inBitmap;
+        public boolean inMutable;
+        public int inDensity;
+        public int inTargetDensity;
+        public int inScreenDensity;
+        public boolean inScaled = true;
+        public byte[] inTempStorage;
+        public boolean mCancel;
+    }
+
+    public static Bitmap decodeStream(final InputStream is, final Rect outPadding, final Options opts) {
+        if (is == null) {
+            return null;
+        }
+        try {
+            final byte[] data = readFully(is);
+            return decode(data, 0, data.length, opts);
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    public static Bitmap decodeStream(final InputStream is) {
+        return decodeStream(is, null, null);
+    }
+
+    public static Bitmap decodeByteArray(final byte[] data, final int offset, final int length, final Options opts) {
+        if ((offset | length) < 0 || data.length < offset + length) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        return decode(data, offset, length, opts);
+    }
+
+    public static Bitmap decodeResource(final Resources res, final int id, final Options opts) {
+        return decodeStream(res.openRawResource(id), null, opts);
+    }
+
+    public static Bitmap decodeFile(final String pathName, final Options opts) {
+        try {
+            final InputStream is = new FileInputStream(new File(pathName));
+            try {
+                return decodeStream(is, null, opts);
+            } finally {
+                is.close();
+            }
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    public static Bitmap decodeFileDescriptor(final FileDescriptor fd, final Rect outPadding, final Options opts) {
+        return decodeStream(new FileInputStream(fd), outPadding, opts);
+    }
+
+    static Bitmap decode(final byte[] data, final int offset, final int length, final Options options) {
+        final Options opts = options != null ? options : new Options();
+        final ImageInfo info = ImageInfo.read(data, offset, length);
+        if (info == null) {
+            opts.outWidth = -1;
+            opts.outHeight = -1;
+            opts.outMimeType = null;
+            return null;
+        }
+
+        final int sampleSize = opts.inSampleSize <= 1 ? 1 : Integer.highestOneBit(opts.inSampleSize);
+        final int sampledWidth = (info.width + sampleSize - 1) / sampleSize;
+        final int sampledHeight = (info.height + sampleSize - 1) / sampleSize;
+
+        float scale = 1f;
+        if (opts.inScaled && opts.inDensity != 0 && opts.inTargetDensity != 0
+                && opts.inDensity != opts.inScreenDensity) {
+            scale = opts.inTargetDensity / (float) opts.inDensity;
+        }
+        final int width = scale == 1f ? sampledWidth : (int) (sampledWidth * scale + 0.5f);
+        final int height = scale == 1f ? sampledHeight : (int) (sampledHeight * scale + 0.5f);
+
+        opts.outWidth = width;
+        opts.outHeight = height;
+        opts.outMimeType = info.mimeType;
+        if (opts.inJustDecodeBounds) {
+            return null;
+        }
+
+        final Bitmap.Config config = opts.inPreferredConfig != null ? opts.inPreferredConfig : Bitmap.Config.ARGB_8888;
+        if (scale != 1f) {
+            // The sampled pixels are decoded natively before they are scaled into the bitmap.
+            BitmapMemory.allocateTransient((long) sampledWidth * sampledHeight * config.bytesPerPixel);
+        }
+
+        final Bitmap bitmap;
+        if (opts.inBitmap != null) {
+            if (!opts.inBitmap.isMutable() || opts.inBitmap.isRecycled()
+                    || opts.inBitmap.getAllocationByteCount() < width * height * config.bytesPerPixel) {
+                throw new IllegalArgumentException("Problem decoding into existing bitmap");
+            }
+            bitmap = opts.inBitmap;
+            bitmap.reconfigure(width, height, config);
+        } else {
+            bitmap = new Bitmap(width, height, config, opts.inMutable);
+        }
+        bitmap.setHasAlpha(info.hasAlpha && config != Bitmap.Config.RGB_565);
+        bitmap.setDensity(scale != 1f ? opts.inTargetDensity : Bitmap.DEFAULT_DENSITY);
+        return bitmap;
+    }
+
+    static byte[] readFully(final InputStream is) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int n;
+        while ((n = is.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Dimensions, type and transparency of an encoded image.
+     */
+    static final class ImageInfo {
+        final int width;
+        final int height;
+        final String mimeType;
+        final boolean hasAlpha;
+
+        ImageInfo(final int width, final int height, final String mimeType, final boolean hasAlpha) {
+            this.width = width;
+            this.height = height;
+            this.mimeType = mimeType;
+            this.hasAlpha = hasAlpha;
+        }
+
+        static ImageInfo read(final byte[] data, final int offset, final int length) {
+            if (length < 12) {
+                return null;
+            }
+            final ImageInfo shadow = readCompressed(data, offset, length);
+            if (shadow != null) {
+                return shadow;
+            }
+            if (isWebp(data, offset)) {
+                return readWebp(data, offset, length);
+            }
+            return readImageIo(data, offset, length);
+        }
+
+        private static ImageInfo readCompressed(final byte[] data, final int offset, final int length) {
+            if (length < 14) {
+                return null;
+            }
+            try {
+                final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+                if (in.readInt() != Bitmap.COMPRESSED_MAGIC) {
+                    return null;
+                }
+                final Bitmap.CompressFormat format = Bitmap.CompressFormat.values()[in.readByte()];
+                final int width = in.readInt();
+                final int height = in.readInt();
+                final boolean hasAlpha = in.readBoolean();
+                return new ImageInfo(width, height, "image/" + format.name().toLowerCase(), hasAlpha);
+            } catch (final IOException e) {
+                return null;
+            } catch (final ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+
+        private static boolean isWebp(final byte[] data, final int offset) {
+            return data[offset] == 'R' && data[offset + 1] == 'I' && data[offset + 2] == 'F' && data[offset + 3] == 'F'
+                    && data[offset + 8] == 'W' && data[offset + 9] == 'E' && data[offset + 10] == 'B'
+                    && data[offset + 11] == 'P';
+        }
+
+        private static ImageInfo readWebp(final byte[] data, final int offset, final int length) {
+            if (length < 30) {
+                return null;
+            }
+            final int chunk = offset + 12;
+            final String fourCc = new String(data, chunk, 4);
+            if ("VP8X".equals(fourCc)) {
+                final boolean hasAlpha = (data[chunk + 8] & 0x10) != 0;
+                final int width = 1 + uint24(data, chunk + 12);
+                final int height = 1 + uint24(data, chunk + 15);
+                return new ImageInfo(width, height, "image/webp", hasAlpha);
+            }
+            if ("VP8L".equals(fourCc)) {
+                if ((data[chunk + 8] & 0xff) != 0x2f) {
+                    return null;
+                }
+                final int bits = (data[chunk + 9] & 0xff) | (data[chunk + 10] & 0xff) << 8
+                        | (data[chunk + 11] & 0xff) << 16 | (data[chunk + 12] & 0xff) << 24;
+                final int width = 1 + (bits & 0x3fff);
+                final int height = 1 + ((bits >> 14) & 0x3fff);
+                final boolean hasAlpha = ((bits >> 28) & 1) != 0;
+                return new ImageInfo(width, height, "image/webp", hasAlpha);
+            }
+            if ("VP8 ".equals(fourCc)) {
+                final int frame = chunk + 8;
+                if ((data[frame + 3] & 0xff) != 0x9d || (data[frame + 4] & 0xff) != 0x01
+                        || (data[frame + 5] & 0xff) != 0x2a) {
+                    return null;
+                }
+                final int width = ((data[frame + 6] & 0xff) | (data[frame + 7] & 0xff) << 8) & 0x3fff;
+                final int height = ((data[frame + 8] & 0xff) | (data[frame + 9] & 0xff) << 8) & 0x3fff;
+                return new ImageInfo(width, height, "image/webp", false);
+            }
+            return null;
+        }
+
+        private static int uint24(final byte[] data, final int offset) {
+            return (data[offset] & 0xff) | (data[offset + 1] & 0xff) << 8 | (data[offset + 2] & 0xff) << 16;
+        }
+
+        private static ImageInfo readImageIo(final byte[] data, final int offset, final int length) {
+            try {
+                final ImageInputStream iis =
+                        ImageIO.createImageInputStream(new ByteArrayInputStream(data, offset, length));
+                if (iis == null) {
+                    return null;
+                }
+                try {
+                    final Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+                    if (!readers.hasNext()) {
+                        return null;
+                    }
+                    final ImageReader reader = readers.next();
+                    try {
+                        reader.setInput(iis, true, true);
+                        final int width = reader.getWidth(0);
+                        final int height = reader.getHeight(0);
+                        final Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+                        final boolean hasAlpha = types.hasNext() && types.next().getColorModel().hasAlpha();
+                        final String mimeType = reader.getOriginatingProvider().getMIMETypes()[0];
+                        return new ImageInfo(width, height, mimeType, hasAlpha);
+                    } finally {
+                        reader.dispose();
+                    }
+                } finally {
+                    iis.close();
+                }
+            } catch (final IOException e) {
+                return null;
+            } catch (final RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.graphics;
+
+/**
+ * Bookkeeping for the pixel memory of shadow bitmaps, so that tests and benchmarks can compare
+ * decode strategies. Not part of the Android API.
+ * <p/>
+ * Pixels a decoder holds only while it scales are counted toward the peak but never allocated on
+ * the heap, as they live in native memory on Android.
+ */
+public final class BitmapMemory {
+    private static long liveBytes;
+    private static long peakBytes;
+    private static long allocatedBytes;
+
+    private BitmapMemory() {
+    }
+
+    static synchronized void allocate(final long bytes) {
+        liveBytes += bytes;
+        allocatedBytes += bytes;
+        peakBytes = Math.max(peakBytes, liveBytes);
+    }
+
+    static synchronized void free(final long bytes) {
+        liveBytes -= bytes;
+    }
+
+    static synchronized void allocateTransient(final long bytes) {
+        peakBytes = Math.max(peakBytes, liveBytes + bytes);
+        allocatedBytes += bytes;
+    }
+
+    /**
+     * Bytes held by bitmaps which have not been recycled.
+     */
+    public static synchronized long liveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * The most bytes held at once since the last {@link #reset()}.
+     */
+    public static synchronized long peakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * Bytes allocated for pixels since the last {@link #reset()}.
+     */
+    public static synchronized long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Start measuring the peak and the allocations from the bytes held now.
+     */
+    public static synchronized void reset() {
+        peakBytes = liveBytes;
+        allocatedBytes = 0;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.graphics;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * JVM shadow of the Android region decoder. Like the platform decoder it only reads JPEG and PNG,
+ * honours {@link BitmapFactory.Options#inSampleSize} and ignores density scaling.
+ */
+public final class BitmapRegionDecoder {
+    private final int width;
+    private final int height;
+    private boolean recycled;
+
+    private BitmapRegionDecoder(final BitmapFactory.ImageInfo info) {
+        this.width = info.width;
+        this.height = info.height;
+    }
+
+    public static BitmapRegionDecoder newInstance(final InputStream is, final boolean isShareable)
+            throws IOException {
+        final byte[] data = BitmapFactory.readFully(is);
+        return newInstance(data, 0, data.length, isShareable);
+    }
+
+    public static BitmapRegionDecoder newInstance(final String pathName, final boolean isShareable)
+            throws IOException {
+        final InputStream is = new FileInputStream(pathName);
+        try {
+            return newInstance(is, isShareable);
+        } finally {
+            is.close();
+        }
+    }
+
+    public static BitmapRegionDecoder newInstance(final byte[] data, final int offset, final int length,
+                                                  final boolean isShareable) throws IOException {
+        final BitmapFactory.ImageInfo info = BitmapFactory.ImageInfo.read(data, offset, length);
+        if (info == null || !("image/jpeg".equals(info.mimeType) || "image/png".equals(info.mimeType))) {
+            throw new IOException("Image format not supported");
+        }
+        return new BitmapRegionDecoder(info);
+    }
+
+    public Bitmap decodeRegion(final Rect rect, final BitmapFactory.Options options) {
+        if (recycled) {
+            throw new IllegalStateException("decodeRegion called on a recycled region decoder");
+        }
+        if (rect.right <= 0 || rect.bottom <= 0 || rect.left >= width || rect.top >= height) {
+            throw new IllegalArgumentException("rectangle is outside the image");
+        }
+        final int left = Math.max(0, rect.left);
+        final int top = Math.max(0, rect.top);
+        final int regionWidth = Math.min(width, rect.right) - left;
+        final int regionHeight = Math.min(height, rect.bottom) - top;
+        final BitmapFactory.Options opts = options != null ? options : new BitmapFactory.Options();
+        final int sampleSize = opts.inSampleSize <= 1 ? 1 : Integer.highestOneBit(opts.inSampleSize);
+        final int sampledWidth = (regionWidth + sampleSize - 1) / sampleSize;
+        final int sampledHeight = (regionHeight + sampleSize - 1) / sampleSize;
+        opts.outWidth = sampledWidth;
+        opts.outHeight = sampledHeight;
+        final Bitmap.Config config =
+                opts.inPreferredConfig != null ? opts.inPreferredConfig : Bitmap.Config.ARGB_8888;
+        return new Bitmap(sampledWidth, sampledHeight, config, opts.inMutable);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void recycle() {
+        recycled = true;
+    }
+
+    public boolean isRecycled() {
+        return recycled;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.graphics;
+
+/**
+ * JVM shadow of the Android canvas. Nothing is drawn.
+ */
+public class Canvas {
+    private Bitmap bitmap;
+    private int saveCount = 1;
+
+    public Canvas() {
+    }
+
+    public Canvas(final Bitmap bitmap) {
+        setBitmap(bitmap);
+    }
+
+    public void setBitmap(final Bitmap bitmap) {
+        if (bitmap != null && !bitmap.isMutable()) {
+            throw new IllegalStateException("Immutable bitmap passed to Canvas constructor");
+        }
+        this.bitmap = bitmap;
+    }
+
+    public int getWidth() {
+        return bitmap != null ? bitmap.getWidth() : 0;
+    }
+
+    public int getHeight() {
+        return bitmap != null ? bitmap.getHeight() : 0;
+    }
+
+    public void drawPath(final Path path, final Paint paint) {
+    }
+
+    public void drawBitmap(final Bitmap source, final Matrix matrix, final Paint paint) {
+        checkDrawable(source);
+    }
+
+    public void drawBitmap(final Bitmap source, final float left, final float top, final Paint paint) {
+        checkDrawable(source);
+    }
+
+    public void concat(final Matrix matrix) {
+    }
+
+    public int save() {
+        return saveCount++;
+    }
+
+    public void restore() {
+        if (saveCount <= 1) {
+            throw new IllegalStateException("Underflow in restore");
+        }
+        saveCount--;
+    }
+
+    public void translate(final float dx, final float dy) {
+    }
+
+    public boolean clipRect(final Rect rect) {
+        return !rect.isEmpty();
+    }
+
+    private static void checkDrawable(final Bitmap source) {
+        if (source.isRecycled()) {
+            throw new RuntimeException("Canvas: trying to use a recycled bitmap " + source);
+        }
+    }
+}
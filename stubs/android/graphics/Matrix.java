@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.graphics;
+
+import java.util.Arrays;
+
+/**
+ * JVM shadow of the Android matrix, limited to affine transforms.
+ */
+public class Matrix {
+    private static final float NEARLY_ZERO = 1f / (1 << 12);
+
+    // scaleX, skewX, transX, skewY, scaleY, transY
+    private final float[] values = new float[6];
+
+    public Matrix() {
+        reset();
+    }
+
+    public Matrix(final Matrix src) {
+        set(src);
+    }
+
+    public void reset() {
+        setValues(1, 0, 0, 0, 1, 0);
+    }
+
+    public void set(final Matrix src) {
+        if (src == null) {
+            reset();
+        } else {
+            System.arraycopy(src.values, 0, values, 0, values.length);
+        }
+    }
+
+    public boolean isIdentity() {
+        return values[0] == 1 && values[1] == 0 && values[2] == 0
+                && values[3] == 0 && values[4] == 1 && values[5] == 0;
+    }
+
+    public boolean rectStaysRect() {
+        final float[] v = values;
+        return (v[1] == 0 && v[3] == 0 && v[0] != 0 && v[4] != 0)
+                || (v[0] == 0 && v[4] == 0 && v[1] != 0 && v[3] != 0);
+    }
+
+    public void setScale(final float sx, final float sy) {
+        setValues(sx, 0, 0, 0, sy, 0);
+    }
+
+    public void setTranslate(final float dx, final float dy) {
+        setValues(1, 0, dx, 0, 1, dy);
+    }
+
+    public void setRotate(final float degrees) {
+        final double radians = Math.toRadians(degrees);
+        final float sin = snap((float) Math.sin(radians));
+        final float cos = snap((float) Math.cos(radians));
+        setValues(cos, -sin, 0, sin, cos, 0);
+    }
+
+    public void setRotate(final float degrees, final float px, final float py) {
+        setRotate(degrees);
+        preTranslate(-px, -py);
+        postTranslate(px, py);
+    }
+
+    public boolean preScale(final float sx, final float sy) {
+        return preConcat(scale(sx, sy));
+    }
+
+    public boolean postScale(final float sx, final float sy) {
+        return postConcat(scale(sx, sy));
+    }
+
+    public boolean preTranslate(final float dx, final float dy) {
+        return preConcat(translate(dx, dy));
+    }
+
+    public boolean postTranslate(final float dx, final float dy) {
+        return postConcat(translate(dx, dy));
+    }
+
+    public boolean preRotate(final float degrees) {
+        return preConcat(rotate(degrees));
+    }
+
+    public boolean postRotate(final float degrees) {
+        return postConcat(rotate(degrees));
+    }
+
+    public boolean preConcat(final Matrix other) {
+        multiply(values, other.values);
+        return true;
+    }
+
+    public boolean postConcat(final Matrix other) {
+        final float[] result = other.values.clone();
+        multiply(result, values);
+        System.arraycopy(result, 0, values, 0, values.length);
+        return true;
+    }
+
+    public boolean invert(final Matrix inverse) {
+        final float[] v = values;
+        final float det = v[0] * v[4] - v[1] * v[3];
+        if (det == 0) {
+            return false;
+        }
+        if (inverse != null) {
+            inverse.setValues(v[4] / det, -v[1] / det, (v[1] * v[5] - v[4] * v[2]) / det,
+                    -v[3] / det, v[0] / det, (v[3] * v[2] - v[0] * v[5]) / det);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the rectangle with the bounds of its mapped corners.
+     */
+    public boolean mapRect(final RectF rect) {
+        final float[] xs = {rect.left, rect.right, rect.left, rect.right};
+        final float[] ys = {rect.top, rect.top, rect.bottom, rect.bottom};
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final float x = values[0] * xs[i] + values[1] * ys[i] + values[2];
+            final float y = values[3] * xs[i] + values[4] * ys[i] + values[5];
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        rect.set(minX, minY, maxX, maxY);
+        return rectStaysRect();
+    }
+
+    public void mapPoints(final float[] pts) {
+        for (int i = 0; i + 1 < pts.length; i += 2) {
+            final float x = pts[i];
+            final float y = pts[i + 1];
+            pts[i] = values[0] * x + values[1] * y + values[2];
+            pts[i + 1] = values[3] * x + values[4] * y + values[5];
+        }
+    }
+
+    public void getValues(final float[] out) {
+        out[0] = values[0];
+        out[1] = values[1];
+        out[2] = values[2];
+        out[3] = values[3];
+        out[4] = values[4];
+        out[5] = values[5];
+        out[6] = 0;
+        out[7] = 0;
+        out[8] = 1;
+    }
+
+    private void setValues(final float scaleX, final float skewX, final float transX,
+                           final float skewY, final float scaleY, final float transY) {
+        values[0] = scaleX;
+        values[1] = skewX;
+        values[2] = transX;
+        values[3] = skewY;
+        values[4] = scaleY;
+        values[5] = transY;
+    }
+
+    /**
+     * Sets {@code a} to {@code a * b}.
+     */
+    private static void multiply(final float[] a, final float[] b) {
+        final float scaleX = a[0] * b[0] + a[1] * b[3];
+        final float skewX = a[0] * b[1] + a[1] * b[4];
+        final float transX = a[0] * b[2] + a[1] * b[5] + a[2];
+        final float skewY = a[3] * b[0] + a[4] * b[3];
+        final float scaleY = a[3] * b[1] + a[4] * b[4];
+        final float transY = a[3] * b[2] + a[4] * b[5] + a[5];
+        a[0] = scaleX;
+        a[1] = skewX;
+        a[2] = transX;
+        a[3] = skewY;
+        a[4] = scaleY;
+        a[5] = transY;
+    }
+
+    private static Matrix scale(final float sx, final float sy) {
+        final Matrix m = new Matrix();
+        m.setScale(sx, sy);
+        return m;
+    }
+
+    private static Matrix translate(final float dx, final float dy) {
+        final Matrix m = new Matrix();
+        m.setTranslate(dx, dy);
+        return m;
+    }
+
+    private static Matrix rotate(final float degrees) {
+        final Matrix m = new Matrix();
+        m.setRotate(degrees);
+        return m;
+    }
+
+    private static float snap(final float value) {
+        return Math.abs(value) < NEARLY_ZERO ? 0 : value;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof Matrix && Arrays.equals(values, ((Matrix) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.graphics;
+
+public class Paint {
+    public static final int ANTI_ALIAS_FLAG = 1;
+    public static final int FILTER_BITMAP_FLAG = 2;
+
+    private int flags;
+    private int color;
+    private ColorFilter colorFilter;
+    private Shader shader;
+
+    public Paint() {
+    }
+
+    public Paint(final int flags) {
+        this.flags = flags;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    public void setColor(final int color) {
+        this.color = color;
+    }
+
+    public void setAlpha(final int alpha) {
+        color = (alpha & 0xff) << 24 | color & 0x00ffffff;
+    }
+
+    public void setFilterBitmap(final boolean filter) {
+        flags = filter ? flags | FILTER_BITMAP_FLAG : flags & ~FILTER_BITMAP_FLAG;
+    }
+
+    public void setAntiAlias(final boolean antiAlias) {
+        flags = antiAlias ? flags | ANTI_ALIAS_FLAG : flags & ~ANTI_ALIAS_FLAG;
+    }
+
+    public ColorFilter setColorFilter(final ColorFilter filter) {
+        colorFilter = filter;
+        return filter;
+    }
+
+    public Shader setShader(final Shader shader) {
+        this.shader = shader;
+        return shader;
+    }
+}
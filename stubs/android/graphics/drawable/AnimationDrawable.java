@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.graphics.drawable;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+
+public class AnimationDrawable extends Drawable {
+    private boolean running;
+
+    public void start() {
+        running = true;
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void draw(final Canvas canvas) {
+    }
+
+    @Override
+    public void setAlpha(final int alpha) {
+    }
+
+    @Override
+    public void setColorFilter(final ColorFilter cf) {
+    }
+
+    @Override
+    public int getOpacity() {
+        return -3; // PixelFormat.TRANSLUCENT
+    }
+}
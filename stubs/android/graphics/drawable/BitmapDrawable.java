@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.graphics.drawable;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+
+public class BitmapDrawable extends Drawable {
+    private final Bitmap bitmap;
+    private final int targetDensity;
+
+    public BitmapDrawable(final Resources res, final Bitmap bitmap) {
+        this.bitmap = bitmap;
+        this.targetDensity = res != null ? res.getDisplayMetrics().densityDpi : 160;
+    }
+
+    public final Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return bitmap == null ? -1 : scale(bitmap.getWidth());
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return bitmap == null ? -1 : scale(bitmap.getHeight());
+    }
+
+    private int scale(final int size) {
+        final int density = bitmap.getDensity();
+        if (density == Bitmap.DENSITY_NONE || density == targetDensity) {
+            return size;
+        }
+        return (size * targetDensity + (density >> 1)) / density;
+    }
+
+    @Override
+    public void draw(final Canvas canvas) {
+    }
+
+    @Override
+    public void setAlpha(final int alpha) {
+    }
+
+    @Override
+    public void setColorFilter(final ColorFilter cf) {
+    }
+
+    @Override
+    public int getOpacity() {
+        return -3; // PixelFormat.TRANSLUCENT
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.media;
+
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * JVM shadow of the Android EXIF reader. Only the orientation of JPEG files is read.
+ */
+public class ExifInterface {
+    public static final String TAG_ORIENTATION = "Orientation";
+    public static final int ORIENTATION_UNDEFINED = 0;
+    public static final int ORIENTATION_NORMAL = 1;
+    public static final int ORIENTATION_ROTATE_180 = 3;
+    public static final int ORIENTATION_ROTATE_90 = 6;
+    public static final int ORIENTATION_ROTATE_270 = 8;
+
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final int orientation;
+
+    public ExifInterface(final String filename) throws IOException {
+        final InputStream is = new FileInputStream(filename);
+        try {
+            orientation = readOrientation(new DataInputStream(is));
+        } finally {
+            is.close();
+        }
+    }
+
+    public int getAttributeInt(final String tag, final int defaultValue) {
+        if (TAG_ORIENTATION.equals(tag) && orientation != ORIENTATION_UNDEFINED) {
+            return orientation;
+        }
+        return defaultValue;
+    }
+
+    private static int readOrientation(final DataInputStream in) throws IOException {
+        if (in.readUnsignedShort() != 0xffd8) {
+            return ORIENTATION_UNDEFINED;
+        }
+        while (true) {
+            final int marker = in.readUnsignedShort();
+            if ((marker & 0xff00) != 0xff00 || marker == 0xffda || marker == 0xffd9) {
+                return ORIENTATION_UNDEFINED;
+            }
+            final int length = in.readUnsignedShort() - 2;
+            final byte[] segment = new byte[length];
+            in.readFully(segment);
+            if (marker == 0xffe1 && length > 14 && segment[0] == 'E' && segment[1] == 'x' && segment[2] == 'i'
+                    && segment[3] == 'f') {
+                return readTiffOrientation(segment, 6);
+            }
+        }
+    }
+
+    private static int readTiffOrientation(final byte[] data, final int tiff) {
+        final boolean little = data[tiff] == 'I';
+        final int ifd = tiff + readInt(data, tiff + 4, little);
+        if (ifd + 2 > data.length) {
+            return ORIENTATION_UNDEFINED;
+        }
+        final int count = readShort(data, ifd, little);
+        for (int i = 0; i < count; i++) {
+            final int entry = ifd + 2 + i * 12;
+            if (entry + 12 > data.length) {
+                break;
+            }
+            if (readShort(data, entry, little) == ORIENTATION_TAG) {
+                return readShort(data, entry + 8, little);
+            }
+        }
+        return ORIENTATION_UNDEFINED;
+    }
+
+    private static int readShort(final byte[] data, final int offset, final boolean little) {
+        final int a = data[offset] & 0xff;
+        final int b = data[offset + 1] & 0xff;
+        return little ? b << 8 | a : a << 8 | b;
+    }
+
+    private static int readInt(final byte[] data, final int offset, final boolean little) {
+        final int high = readShort(data, little ? offset + 2 : offset, little);
+        final int low = readShort(data, little ? offset : offset + 2, little);
+        return high << 16 | low;
+    }
+}
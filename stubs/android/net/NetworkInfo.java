@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.net;
+
+/**
+ * JVM shadow of the Android network description.
+ */
+public class NetworkInfo {
+    private final int type;
+    private final int subtype;
+    private final boolean connected;
+
+    public NetworkInfo(final int type, final int subtype, final boolean connected) {
+        this.type = type;
+        this.subtype = subtype;
+        this.connected = connected;
+    }
+
+    public boolean isConnectedOrConnecting() {
+        return connected;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getSubtype() {
+        return subtype;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.net;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JVM shadow of the Android URI, parsed with {@link java.net.URI}. Equality is by string form, as
+ * on Android.
+ */
+public abstract class Uri implements Comparable<Uri> {
+    public static Uri parse(final String uriString) {
+        if (uriString == null) {
+            throw new NullPointerException("uriString");
+        }
+        return new StringUri(uriString);
+    }
+
+    public static Uri fromFile(final File file) {
+        if (file == null) {
+            throw new NullPointerException("file");
+        }
+        return new StringUri("file://" + file.getAbsolutePath());
+    }
+
+    public abstract String getScheme();
+
+    public abstract String getHost();
+
+    public abstract String getPath();
+
+    public abstract String getAuthority();
+
+    public abstract List<String> getPathSegments();
+
+    public String getLastPathSegment() {
+        final List<String> segments = getPathSegments();
+        return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof Uri && toString().equals(o.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    @Override
+    public int compareTo(final Uri other) {
+        return toString().compareTo(other.toString());
+    }
+
+    private static final class StringUri extends Uri {
+        private final String uriString;
+        private final java.net.URI parsed;
+
+        StringUri(final String uriString) {
+            this.uriString = uriString;
+            java.net.URI uri;
+            try {
+                uri = new java.net.URI(uriString);
+            } catch (final java.net.URISyntaxException e) {
+                uri = null;
+            }
+            this.parsed = uri;
+        }
+
+        @Override
+        public String getScheme() {
+            return parsed != null ? parsed.getScheme() : null;
+        }
+
+        @Override
+        public String getHost() {
+            return parsed != null ? parsed.getHost() : null;
+        }
+
+        @Override
+        public String getPath() {
+            return parsed != null ? parsed.getPath() : null;
+        }
+
+        @Override
+        public String getAuthority() {
+            return parsed != null ? parsed.getAuthority() : null;
+        }
+
+        @Override
+        public List<String> getPathSegments() {
+            final String path = getPath();
+            if (path == null) {
+                return Collections.emptyList();
+            }
+            final List<String> segments = new ArrayList<String>();
+            for (final String segment : path.split("/")) {
+                if (segment.length() > 0) {
+                    segments.add(segment);
+                }
+            }
+            return Collections.unmodifiableList(segments);
+        }
+
+        @Override
+        public String toString() {
+            return uriString;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.net.http;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * JVM shadow of the Android HTTP response cache. No cache is ever installed.
+ */
+public class HttpResponseCache {
+    public static HttpResponseCache getInstalled() {
+        return null;
+    }
+
+    public static HttpResponseCache install(final File directory, final long maxSize) throws IOException {
+        return null;
+    }
+}
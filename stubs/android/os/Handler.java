@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+/**
+ * JVM shadow of the Android handler, backed by a real message loop.
+ */
+public class Handler {
+    public interface Callback {
+        boolean handleMessage(Message msg);
+    }
+
+    private final Looper looper;
+    private final Callback callback;
+
+    public Handler() {
+        this(Looper.myLooper(), null);
+    }
+
+    public Handler(final Looper looper) {
+        this(looper, null);
+    }
+
+    public Handler(final Looper looper, final Callback callback) {
+        if (looper == null) {
+            throw new RuntimeException("Can't create handler inside thread that has not called Looper.prepare()");
+        }
+        this.looper = looper;
+        this.callback = callback;
+    }
+
+    public void handleMessage(final Message msg) {
+    }
+
+    public void dispatchMessage(final Message msg) {
+        if (msg.callback != null) {
+            msg.callback.run();
+        } else if (callback == null || !callback.handleMessage(msg)) {
+            handleMessage(msg);
+        }
+    }
+
+    public final Message obtainMessage(final int what) {
+        return obtainMessage(what, 0, 0, null);
+    }
+
+    public final Message obtainMessage(final int what, final Object obj) {
+        return obtainMessage(what, 0, 0, obj);
+    }
+
+    public final Message obtainMessage(final int what, final int arg1, final int arg2) {
+        return obtainMessage(what, arg1, arg2, null);
+    }
+
+    public final Message obtainMessage(final int what, final int arg1, final int arg2, final Object obj) {
+        final Message message = Message.obtain();
+        message.target = this;
+        message.what = what;
+        message.arg1 = arg1;
+        message.arg2 = arg2;
+        message.obj = obj;
+        return message;
+    }
+
+    public final boolean sendMessage(final Message msg) {
+        return sendMessageDelayed(msg, 0);
+    }
+
+    public final boolean sendMessageDelayed(final Message msg, final long delayMillis) {
+        return sendMessageAtTime(msg, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    public final boolean sendMessageAtTime(final Message msg, final long uptimeMillis) {
+        msg.target = this;
+        return looper.queue.enqueue(msg, uptimeMillis);
+    }
+
+    public final boolean sendMessageAtFrontOfQueue(final Message msg) {
+        msg.target = this;
+        return looper.queue.enqueueAtFront(msg);
+    }
+
+    public final boolean sendEmptyMessage(final int what) {
+        return sendMessage(obtainMessage(what));
+    }
+
+    public final boolean sendEmptyMessageDelayed(final int what, final long delayMillis) {
+        return sendMessageDelayed(obtainMessage(what), delayMillis);
+    }
+
+    public final boolean post(final Runnable r) {
+        return sendMessage(runnableMessage(r));
+    }
+
+    public final boolean postDelayed(final Runnable r, final long delayMillis) {
+        return sendMessageDelayed(runnableMessage(r), delayMillis);
+    }
+
+    public final boolean postAtFrontOfQueue(final Runnable r) {
+        return sendMessageAtFrontOfQueue(runnableMessage(r));
+    }
+
+    public final boolean hasMessages(final int what) {
+        return looper.queue.has(this, what, null);
+    }
+
+    public final void removeMessages(final int what) {
+        looper.queue.remove(this, what, null);
+    }
+
+    public final void removeMessages(final int what, final Object object) {
+        looper.queue.remove(this, what, object);
+    }
+
+    public final void removeCallbacks(final Runnable r) {
+        looper.queue.remove(this, r);
+    }
+
+    public final Looper getLooper() {
+        return looper;
+    }
+
+    private Message runnableMessage(final Runnable r) {
+        final Message message = Message.obtain();
+        message.target = this;
+        message.callback = r;
+        return message;
+    }
+}
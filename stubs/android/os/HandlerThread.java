@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+/**
+ * JVM shadow of the Android handler thread.
+ */
+public class HandlerThread extends Thread {
+    private Looper looper;
+
+    public HandlerThread(final String name) {
+        super(name);
+    }
+
+    public HandlerThread(final String name, final int priority) {
+        super(name);
+    }
+
+    @Override
+    public void run() {
+        Looper.prepare();
+        synchronized (this) {
+            looper = Looper.myLooper();
+            notifyAll();
+        }
+        Looper.loop();
+    }
+
+    public Looper getLooper() {
+        if (!isAlive() && looper == null) {
+            return null;
+        }
+        synchronized (this) {
+            while (looper == null) {
+                try {
+                    wait();
+                } catch (final InterruptedException ignored) {
+                }
+            }
+        }
+        return looper;
+    }
+
+    public boolean quit() {
+        final Looper looper = getLooper();
+        if (looper == null) {
+            return false;
+        }
+        looper.quit();
+        return true;
+    }
+}
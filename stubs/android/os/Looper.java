@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+/**
+ * JVM shadow of the Android looper. The main looper runs on a daemon thread named "main" which
+ * is started on first use.
+ */
+public final class Looper {
+    private static final ThreadLocal<Looper> LOOPER = new ThreadLocal<Looper>();
+    private static Looper mainLooper;
+
+    final MessageQueue queue = new MessageQueue();
+    private final Thread thread;
+
+    private Looper() {
+        thread = Thread.currentThread();
+    }
+
+    public static void prepare() {
+        if (LOOPER.get() != null) {
+            throw new RuntimeException("Only one Looper may be created per thread");
+        }
+        LOOPER.set(new Looper());
+    }
+
+    public static Looper myLooper() {
+        return LOOPER.get();
+    }
+
+    public static synchronized Looper getMainLooper() {
+        if (mainLooper == null) {
+            final HandlerThread main = new HandlerThread("main");
+            main.setDaemon(true);
+            main.start();
+            mainLooper = main.getLooper();
+        }
+        return mainLooper;
+    }
+
+    public static void loop() {
+        final Looper looper = myLooper();
+        if (looper == null) {
+            throw new RuntimeException("No Looper; Looper.prepare() wasn't called on this thread.");
+        }
+        Message message;
+        while ((message = looper.queue.next()) != null) {
+            message.target.dispatchMessage(message);
+        }
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    public void quit() {
+        queue.quit();
+    }
+}
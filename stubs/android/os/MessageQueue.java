@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Messages ordered by due time, then by the order they were sent in.
+ */
+final class MessageQueue {
+    private final PriorityQueue<Message> messages = new PriorityQueue<Message>(16, new Comparator<Message>() {
+        @Override
+        public int compare(final Message a, final Message b) {
+            if (a.when != b.when) {
+                return a.when < b.when ? -1 : 1;
+            }
+            return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+        }
+    });
+
+    private long nextSequence;
+    private boolean quitting;
+
+    synchronized boolean enqueue(final Message message, final long when) {
+        if (quitting) {
+            return false;
+        }
+        message.when = when;
+        message.sequence = nextSequence++;
+        messages.add(message);
+        notifyAll();
+        return true;
+    }
+
+    synchronized boolean enqueueAtFront(final Message message) {
+        if (quitting) {
+            return false;
+        }
+        message.when = Long.MIN_VALUE;
+        message.sequence = nextSequence++;
+        messages.add(message);
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Blocks until a message is due. Returns {@code null} once the queue quits.
+     */
+    synchronized Message next() {
+        while (true) {
+            if (quitting) {
+                return null;
+            }
+            final Message head = messages.peek();
+            final long now = SystemClock.uptimeMillis();
+            if (head != null && head.when <= now) {
+                return messages.poll();
+            }
+            try {
+                if (head == null) {
+                    wait();
+                } else {
+                    wait(Math.max(1, head.when - now));
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    synchronized boolean has(final Handler handler, final int what, final Object obj) {
+        for (final Message message : messages) {
+            if (message.target == handler && message.callback == null && message.what == what
+                    && (obj == null || message.obj == obj)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized void remove(final Handler handler, final int what, final Object obj) {
+        for (final Iterator<Message> it = messages.iterator(); it.hasNext(); ) {
+            final Message message = it.next();
+            if (message.target == handler && message.callback == null && message.what == what
+                    && (obj == null || message.obj == obj)) {
+                it.remove();
+            }
+        }
+    }
+
+    synchronized void remove(final Handler handler, final Runnable callback) {
+        for (final Iterator<Message> it = messages.iterator(); it.hasNext(); ) {
+            final Message message = it.next();
+            if (message.target == handler && message.callback == callback) {
+                it.remove();
+            }
+        }
+    }
+
+    synchronized void quit() {
+        quitting = true;
+        messages.clear();
+        notifyAll();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+import java.io.File;
+
+/**
+ * JVM shadow of the Android file system statistics, backed by {@link File}.
+ */
+public class StatFs {
+    private static final int BLOCK_SIZE = 4096;
+
+    private final File path;
+
+    public StatFs(final String path) {
+        this.path = new File(path);
+    }
+
+    public int getBlockCount() {
+        return (int) Math.min(Integer.MAX_VALUE, path.getTotalSpace() / BLOCK_SIZE);
+    }
+
+    public int getBlockSize() {
+        return BLOCK_SIZE;
+    }
+}
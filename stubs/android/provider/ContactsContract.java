@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.provider;
+
+import java.io.InputStream;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+public final class ContactsContract {
+    public static final String AUTHORITY = "com.android.contacts";
+
+    public static class Contacts {
+        public static final Uri CONTENT_URI = Uri.parse("content://" + AUTHORITY + "/contacts");
+
+        public static final class Photo {
+            public static final String CONTENT_DIRECTORY = "photo";
+        }
+
+        public static Uri lookupContact(final ContentResolver resolver, final Uri lookupUri) {
+            return null;
+        }
+
+        public static InputStream openContactPhotoInputStream(final ContentResolver resolver, final Uri contactUri) {
+            return null;
+        }
+
+        public static InputStream openContactPhotoInputStream(final ContentResolver resolver, final Uri contactUri,
+                                                              final boolean preferHighres) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.provider;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+public final class MediaStore {
+    public static final String AUTHORITY = "media";
+
+    public static final class Images {
+        public interface ImageColumns {
+            String ORIENTATION = "orientation";
+        }
+
+        public static class Thumbnails {
+            public static final int MINI_KIND = 1;
+            public static final int FULL_SCREEN_KIND = 2;
+            public static final int MICRO_KIND = 3;
+
+            public static Bitmap getThumbnail(final ContentResolver cr, final long origId, final int kind,
+                                              final BitmapFactory.Options options) {
+                return null;
+            }
+        }
+
+        public static class Media {
+            public static Bitmap getBitmap(final ContentResolver cr, final Uri url) {
+                return null;
+            }
+        }
+    }
+
+    public static class Video {
+        public static class Thumbnails {
+            public static Bitmap getThumbnail(final ContentResolver cr, final long origId, final int kind,
+                                              final BitmapFactory.Options options) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.telephony;
+
+public class TelephonyManager {
+    public static final int NETWORK_TYPE_GPRS = 1;
+    public static final int NETWORK_TYPE_EDGE = 2;
+    public static final int NETWORK_TYPE_UMTS = 3;
+    public static final int NETWORK_TYPE_CDMA = 4;
+    public static final int NETWORK_TYPE_EVDO_0 = 5;
+    public static final int NETWORK_TYPE_EVDO_A = 6;
+    public static final int NETWORK_TYPE_EVDO_B = 12;
+    public static final int NETWORK_TYPE_LTE = 13;
+    public static final int NETWORK_TYPE_EHRPD = 14;
+    public static final int NETWORK_TYPE_HSPAP = 15;
+}
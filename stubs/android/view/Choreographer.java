@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * JVM shadow of the Android choreographer, producing a frame every 16 ms on the main looper.
+ */
+public final class Choreographer {
+    private static final long FRAME_INTERVAL_MILLIS = 16;
+    private static Choreographer instance;
+
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<FrameCallback> callbacks = new ArrayList<FrameCallback>();
+    private final Runnable frame = new Runnable() {
+        @Override
+        public void run() {
+            final List<FrameCallback> pending = new ArrayList<FrameCallback>(callbacks);
+            callbacks.clear();
+            final long frameTimeNanos = System.nanoTime();
+            for (final FrameCallback callback : pending) {
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+    };
+
+    private Choreographer() {
+    }
+
+    public static synchronized Choreographer getInstance() {
+        if (instance == null) {
+            instance = new Choreographer();
+        }
+        return instance;
+    }
+
+    public void postFrameCallback(final FrameCallback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback must not be null");
+        }
+        if (callbacks.isEmpty()) {
+            handler.postDelayed(frame, FRAME_INTERVAL_MILLIS);
+        }
+        callbacks.add(callback);
+    }
+
+    public void removeFrameCallback(final FrameCallback callback) {
+        callbacks.remove(callback);
+        if (callbacks.isEmpty()) {
+            handler.removeCallbacks(frame);
+        }
+    }
+}
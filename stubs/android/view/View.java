@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.view;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class View {
+    public interface OnAttachStateChangeListener {
+        void onViewAttachedToWindow(View v);
+
+        void onViewDetachedFromWindow(View v);
+    }
+
+    private final List<OnAttachStateChangeListener> attachStateListeners =
+            new ArrayList<OnAttachStateChangeListener>();
+    private final ViewTreeObserver viewTreeObserver = new ViewTreeObserver();
+    private final Map<Integer, Object> keyedTags = new HashMap<Integer, Object>();
+    private Object tag;
+    private int measuredWidth;
+    private int measuredHeight;
+    ViewParent parent;
+
+    public ViewTreeObserver getViewTreeObserver() {
+        return viewTreeObserver;
+    }
+
+    public final ViewParent getParent() {
+        return parent;
+    }
+
+    public final int getMeasuredWidth() {
+        return measuredWidth;
+    }
+
+    public final int getMeasuredHeight() {
+        return measuredHeight;
+    }
+
+    protected final void setMeasuredDimension(final int measuredWidth, final int measuredHeight) {
+        this.measuredWidth = measuredWidth;
+        this.measuredHeight = measuredHeight;
+    }
+
+    public Object getTag() {
+        return tag;
+    }
+
+    public void setTag(final Object tag) {
+        this.tag = tag;
+    }
+
+    public Object getTag(final int key) {
+        return keyedTags.get(key);
+    }
+
+    public void setTag(final int key, final Object tag) {
+        keyedTags.put(key, tag);
+    }
+
+    public void addOnAttachStateChangeListener(final OnAttachStateChangeListener listener) {
+        attachStateListeners.add(listener);
+    }
+
+    public void removeOnAttachStateChangeListener(final OnAttachStateChangeListener listener) {
+        attachStateListeners.remove(listener);
+    }
+
+    /**
+     * Hidden on Android, where the window calls it. Public here so that tests can stand in for it.
+     */
+    public void dispatchDetachedFromWindow() {
+        for (final OnAttachStateChangeListener listener
+                : new ArrayList<OnAttachStateChangeListener>(attachStateListeners)) {
+            listener.onViewDetachedFromWindow(this);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class ViewGroup extends View implements ViewParent {
+    private final List<View> children = new ArrayList<View>();
+
+    public void addView(final View child) {
+        if (child.parent != null) {
+            throw new IllegalStateException("The specified child already has a parent.");
+        }
+        children.add(child);
+        child.parent = this;
+    }
+
+    public void removeView(final View child) {
+        if (children.remove(child)) {
+            child.parent = null;
+        }
+    }
+
+    public int getChildCount() {
+        return children.size();
+    }
+
+    public View getChildAt(final int index) {
+        return index < 0 || index >= children.size() ? null : children.get(index);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ViewTreeObserver {
+    public interface OnPreDrawListener {
+        boolean onPreDraw();
+    }
+
+    private final List<OnPreDrawListener> onPreDrawListeners = new ArrayList<OnPreDrawListener>();
+
+    public boolean isAlive() {
+        return true;
+    }
+
+    public void addOnPreDrawListener(final OnPreDrawListener listener) {
+        onPreDrawListeners.add(listener);
+    }
+
+    public void removeOnPreDrawListener(final OnPreDrawListener listener) {
+        onPreDrawListeners.remove(listener);
+    }
+
+    public boolean dispatchOnPreDraw() {
+        boolean cancelDraw = false;
+        for (final OnPreDrawListener listener : new ArrayList<OnPreDrawListener>(onPreDrawListeners)) {
+            cancelDraw |= !listener.onPreDraw();
+        }
+        return cancelDraw;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.widget;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+/**
+ * JVM shadow of the Android adapter view. Children are laid out one per position, starting at the
+ * first visible position.
+ */
+public abstract class AdapterView<T extends Adapter> extends ViewGroup {
+    public static final int INVALID_POSITION = -1;
+
+    private int firstPosition;
+
+    public int getFirstVisiblePosition() {
+        return firstPosition;
+    }
+
+    public int getLastVisiblePosition() {
+        return firstPosition + getChildCount() - 1;
+    }
+
+    public void setFirstVisiblePosition(final int firstPosition) {
+        this.firstPosition = firstPosition;
+    }
+
+    public int getPositionForView(final View view) {
+        View child = view;
+        ViewParent parent = view.getParent();
+        while (parent != null && parent != this) {
+            if (!(parent instanceof View)) {
+                return INVALID_POSITION;
+            }
+            child = (View) parent;
+            parent = child.getParent();
+        }
+        if (parent == null) {
+            return INVALID_POSITION;
+        }
+        for (int i = 0, n = getChildCount(); i < n; i++) {
+            if (getChildAt(i) == child) {
+                return firstPosition + i;
+            }
+        }
+        return INVALID_POSITION;
+    }
+}
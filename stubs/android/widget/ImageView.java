@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.widget;
+
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+public class ImageView extends View {
+    private Drawable drawable;
+    private int resource;
+
+    public Drawable getDrawable() {
+        return drawable;
+    }
+
+    public void setImageDrawable(final Drawable drawable) {
+        this.drawable = drawable;
+        this.resource = 0;
+    }
+
+    public void setImageResource(final int resId) {
+        this.drawable = null;
+        this.resource = resId;
+    }
+}
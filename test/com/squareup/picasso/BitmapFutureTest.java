@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BitmapFutureTest {
+    private final Uri uri = Uri.parse("http://example.com/image.png");
+    private FakeDownloader downloader;
+    private Picasso picasso;
+
+    @Before
+    public void setUp() {
+        downloader = new FakeDownloader();
+        picasso = new Picasso.Builder(new FakeContext()).downloader(downloader).build();
+    }
+
+    @After
+    public void tearDown() {
+        picasso.shutdown();
+    }
+
+    @Test
+    public void submitCompletesWithResizedBitmap() throws Exception {
+        downloader.put(uri, TestImages.encoded(400, 300));
+
+        final Bitmap bitmap = picasso.load(uri).resize(100, 75).submit().get(5, TimeUnit.SECONDS);
+
+        assertEquals(100, bitmap.getWidth());
+        assertEquals(75, bitmap.getHeight());
+        assertEquals(1, downloader.loadCount(uri));
+    }
+
+    @Test
+    public void submitFailsWhenDownloadFails() throws Exception {
+        final BitmapFuture future = picasso.load(uri).submit();
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof Downloader.ResponseException);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapMemory;
+import android.net.Uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ContentStreamBitmapHunterTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Picasso picasso;
+
+    @Before
+    public void setUp() {
+        picasso = new Picasso.Builder(new FakeContext()).build();
+    }
+
+    @After
+    public void tearDown() {
+        picasso.shutdown();
+    }
+
+    @Test
+    public void centerCropOfAWideImageDecodesOnlyTheRegionItKeeps() throws Exception {
+        // JPEG is decoded by region. WebP is not, so the same crop decodes the whole image.
+        final Uri jpeg = write("wide.jpg", TestImages.jpeg(6000, 1500));
+        final Uri webp = write("wide.webp", TestImages.webp(6000, 1500, 4096));
+
+        final long regionPeak = peakBytesOfCenterCrop(jpeg);
+        final long fullPeak = peakBytesOfCenterCrop(webp);
+
+        // The crop keeps a quarter of the source, which bounds the decoded pixels as well.
+        assertTrue("region " + regionPeak + " vs full " + fullPeak, regionPeak * 2 < fullPeak);
+    }
+
+    private long peakBytesOfCenterCrop(final Uri uri) throws IOException {
+        final long before = BitmapMemory.liveBytes();
+        BitmapMemory.reset();
+        final Bitmap bitmap = picasso.load(uri).resize(250, 250).centerCrop().skipMemoryCache().get();
+        assertEquals(250, bitmap.getWidth());
+        assertEquals(250, bitmap.getHeight());
+        return BitmapMemory.peakBytes() - before;
+    }
+
+    private Uri write(final String name, final byte[] image) throws IOException {
+        final File file = folder.newFile(name);
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(image);
+        } finally {
+            out.close();
+        }
+        return Uri.fromFile(file);
+    }
+}
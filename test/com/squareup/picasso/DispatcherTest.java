@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DispatcherTest {
+    private final Uri uri = Uri.parse("http://example.com/photo.png");
+    private FakeDownloader downloader;
+    private Picasso picasso;
+
+    @Before
+    public void setUp() {
+        downloader = new FakeDownloader();
+        picasso = new Picasso.Builder(new FakeContext()).downloader(downloader).build();
+    }
+
+    @After
+    public void tearDown() {
+        downloader.release();
+        picasso.shutdown();
+    }
+
+    @Test
+    public void concurrentSizesOfOneSourceLoadItOnce() throws Exception {
+        downloader.put(uri, TestImages.encoded(800, 600));
+        downloader.hold();
+
+        final int[][] sizes = {{400, 400}, {300, 300}, {200, 100}, {100, 200}, {50, 50}, {400, 300}};
+        final List<BitmapFuture> futures = new ArrayList<BitmapFuture>();
+        for (final int[] size : sizes) {
+            futures.add(picasso.load(uri).resize(size[0], size[1]).centerInside().submit());
+        }
+        awaitDispatcher();
+        downloader.release();
+
+        final List<Bitmap> bitmaps = BitmapFuture.getAll(futures, 5, TimeUnit.SECONDS);
+        assertEquals(1, downloader.loadCount(uri));
+        final int[][] expected = {{400, 300}, {300, 225}, {133, 100}, {100, 75}, {50, 38}, {400, 300}};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i][0], bitmaps.get(i).getWidth());
+            assertEquals(expected[i][1], bitmaps.get(i).getHeight());
+        }
+    }
+
+    @Test
+    public void requestsTheLeaderMightNotCoverLoadOnTheirOwn() throws Exception {
+        // A wide source leaves the centered inside leader too short for the crop.
+        downloader.put(uri, TestImages.encoded(800, 200));
+        downloader.hold();
+
+        final BitmapFuture leader = picasso.load(uri).resize(400, 400).centerInside().submit();
+        final BitmapFuture crop = picasso.load(uri).resize(300, 300).centerCrop().submit();
+        awaitDispatcher();
+        downloader.release();
+
+        assertEquals(100, leader.get(5, TimeUnit.SECONDS).getHeight());
+        assertEquals(300, crop.get(5, TimeUnit.SECONDS).getHeight());
+        assertEquals(2, downloader.loadCount(uri));
+    }
+
+    /**
+     * Wait until the dispatcher has handled every request submitted so far. Releasing the load any
+     * earlier could let the leader finish before the rest of the requests find it.
+     */
+    private void awaitDispatcher() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        picasso.dispatcher.handler.post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import android.app.ActivityManager;
+import android.content.BroadcastReceiver;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.net.ConnectivityManager;
+
+/**
+ * Context backed by a temporary cache directory, for running Picasso on the JVM.
+ */
+class FakeContext extends Context {
+    final File cacheDir;
+    final Resources resources = new Resources();
+    final ContentResolver contentResolver = new ContentResolver();
+    final ConnectivityManager connectivityManager = new ConnectivityManager();
+    final ActivityManager activityManager = new ActivityManager();
+    final ApplicationInfo applicationInfo = new ApplicationInfo();
+    final List<BroadcastReceiver> receivers = new ArrayList<BroadcastReceiver>();
+
+    FakeContext() {
+        try {
+            cacheDir = File.createTempFile("picasso", "cache");
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!cacheDir.delete() || !cacheDir.mkdirs()) {
+            throw new IllegalStateException("Unable to create " + cacheDir);
+        }
+        cacheDir.deleteOnExit();
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    @Override
+    public Object getSystemService(final String name) {
+        if (ACTIVITY_SERVICE.equals(name)) {
+            return activityManager;
+        }
+        if (CONNECTIVITY_SERVICE.equals(name)) {
+            return connectivityManager;
+        }
+        return null;
+    }
+
+    @Override
+    public ApplicationInfo getApplicationInfo() {
+        return applicationInfo;
+    }
+
+    @Override
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    @Override
+    public ContentResolver getContentResolver() {
+        return contentResolver;
+    }
+
+    @Override
+    public int checkCallingOrSelfPermission(final String permission) {
+        return PackageManager.PERMISSION_GRANTED;
+    }
+
+    @Override
+    public PackageManager getPackageManager() {
+        return null;
+    }
+
+    @Override
+    public Resources getResources() {
+        return resources;
+    }
+
+    @Override
+    public AssetManager getAssets() {
+        return new AssetManager(cacheDir);
+    }
+
+    @Override
+    public Intent registerReceiver(final BroadcastReceiver receiver, final IntentFilter filter) {
+        receivers.add(receiver);
+        return null;
+    }
+
+    @Override
+    public void unregisterReceiver(final BroadcastReceiver receiver) {
+        receivers.remove(receiver);
+    }
+}
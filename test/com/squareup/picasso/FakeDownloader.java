@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.net.Uri;
+
+/**
+ * Serves registered payloads and counts the loads of each URI. Loads can be held until
+ * {@link #release()} to let requests pile up behind one another.
+ */
+class FakeDownloader implements Downloader {
+    private final Map<Uri, byte[]> payloads = new ConcurrentHashMap<Uri, byte[]>();
+    private final Map<Uri, AtomicInteger> loads = new ConcurrentHashMap<Uri, AtomicInteger>();
+    private volatile CountDownLatch gate;
+    private volatile boolean reportContentLength = true;
+
+    void put(final Uri uri, final byte[] payload) {
+        payloads.put(uri, payload);
+        loads.put(uri, new AtomicInteger());
+    }
+
+    int loadCount(final Uri uri) {
+        final AtomicInteger count = loads.get(uri);
+        return count != null ? count.get() : 0;
+    }
+
+    void reportContentLength(final boolean reportContentLength) {
+        this.reportContentLength = reportContentLength;
+    }
+
+    void hold() {
+        gate = new CountDownLatch(1);
+    }
+
+    void release() {
+        final CountDownLatch gate = this.gate;
+        this.gate = null;
+        if (gate != null) {
+            gate.countDown();
+        }
+    }
+
+    @Override
+    public Response load(final Uri uri, final boolean localCacheOnly) throws IOException {
+        final byte[] payload = payloads.get(uri);
+        if (payload == null) {
+            throw new ResponseException("404 " + uri);
+        }
+        loads.get(uri).incrementAndGet();
+        final CountDownLatch gate = this.gate;
+        if (gate != null) {
+            try {
+                if (!gate.await(10, TimeUnit.SECONDS)) {
+                    throw new IOException("Load was never released");
+                }
+            } catch (final InterruptedException e) {
+                throw new IOException(e.toString());
+            }
+        }
+        return new Response(new ByteArrayInputStream(payload), false, reportContentLength ? payload.length : -1);
+    }
+}
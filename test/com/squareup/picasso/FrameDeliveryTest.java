@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameDeliveryTest {
+    private final ManualClock clock = new ManualClock();
+    private Picasso picasso;
+
+    @Before
+    public void setUp() {
+        picasso = new Picasso.Builder(new FakeContext()).downloader(new FakeDownloader()).build();
+    }
+
+    @After
+    public void tearDown() {
+        picasso.shutdown();
+    }
+
+    @Test
+    public void deliveryStopsAtTheBudgetAndResumesOnTheNextFrame() {
+        final FrameDelivery delivery = new FrameDelivery(clock, 3);
+        final List<GetAction> actions = new ArrayList<GetAction>();
+        final List<BitmapHunter> batch = new ArrayList<BitmapHunter>();
+        for (int i = 0; i < 5; i++) {
+            batch.add(hunter(i, 1, actions));
+        }
+
+        delivery.deliver(batch);
+        assertEquals(0, done(actions));
+        assertEquals(1, clock.pending());
+
+        clock.frame();
+        assertEquals(3, done(actions));
+        assertEquals(1, clock.pending());
+
+        clock.frame();
+        assertEquals(5, done(actions));
+        assertEquals(0, clock.pending());
+    }
+
+    @Test
+    public void largeHunterGetsAFrameToItself() {
+        final FrameDelivery delivery = new FrameDelivery(clock, 2);
+        final List<GetAction> large = new ArrayList<GetAction>();
+        final List<GetAction> small = new ArrayList<GetAction>();
+        final List<BitmapHunter> batch = new ArrayList<BitmapHunter>();
+        batch.add(hunter(0, 3, large));
+        batch.add(hunter(1, 1, small));
+
+        delivery.deliver(batch);
+        clock.frame();
+        assertEquals(3, done(large));
+        assertEquals(0, done(small));
+
+        clock.frame();
+        assertEquals(1, done(small));
+    }
+
+    @Test
+    public void batchesArrivingBeforeTheFrameShareIt() {
+        final FrameDelivery delivery = new FrameDelivery(clock, 4);
+        final List<GetAction> actions = new ArrayList<GetAction>();
+        final List<BitmapHunter> first = new ArrayList<BitmapHunter>();
+        first.add(hunter(0, 1, actions));
+        final List<BitmapHunter> second = new ArrayList<BitmapHunter>();
+        second.add(hunter(1, 1, actions));
+
+        delivery.deliver(first);
+        delivery.deliver(second);
+        assertEquals(1, clock.pending());
+
+        clock.frame();
+        assertEquals(2, done(actions));
+        assertEquals(0, clock.pending());
+    }
+
+    @Test
+    public void clearDropsPendingHunters() {
+        final FrameDelivery delivery = new FrameDelivery(clock, 1);
+        final List<GetAction> actions = new ArrayList<GetAction>();
+        final List<BitmapHunter> batch = new ArrayList<BitmapHunter>();
+        batch.add(hunter(0, 1, actions));
+        batch.add(hunter(1, 1, actions));
+
+        delivery.deliver(batch);
+        clock.frame();
+        delivery.clear();
+        clock.frame();
+        assertEquals(1, done(actions));
+        assertFalse(actions.get(1).isDone());
+        assertEquals(0, clock.pending());
+    }
+
+    /**
+     * Returns a hunter for its own image, joined by {@code requests} actions which are also added
+     * to {@code actions}. It has no result, so completing it fails its actions.
+     */
+    private BitmapHunter hunter(final int index, final int requests, final List<GetAction> actions) {
+        final Request data = new Request.Builder(Uri.parse("http://example.com/" + index + ".png")).build();
+        final RequestKey key = Utils.createKey(data);
+        BitmapHunter hunter = null;
+        for (int i = 0; i < requests; i++) {
+            final GetAction action = new GetAction(picasso, data, false, key, Picasso.Priority.NORMAL);
+            actions.add(action);
+            if (hunter == null) {
+                hunter = new BitmapHunter(picasso, picasso.dispatcher, picasso.cache, picasso.stats, action) {
+                    @Override
+                    Bitmap decode(final Request data) {
+                        return null;
+                    }
+                };
+            } else {
+                hunter.attach(action);
+            }
+        }
+        return hunter;
+    }
+
+    private static int done(final List<GetAction> actions) {
+        int done = 0;
+        for (final GetAction action : actions) {
+            if (action.isDone()) {
+                done++;
+            }
+        }
+        return done;
+    }
+
+    /**
+     * A frame clock the test advances by hand.
+     */
+    private static final class ManualClock implements FrameDelivery.FrameClock {
+        private final List<Runnable> callbacks = new ArrayList<Runnable>();
+
+        @Override
+        public void postFrameCallback(final Runnable callback) {
+            callbacks.add(callback);
+        }
+
+        int pending() {
+            return callbacks.size();
+        }
+
+        void frame() {
+            final List<Runnable> frame = new ArrayList<Runnable>(callbacks);
+            callbacks.clear();
+            assertTrue("No frame was requested.", !frame.isEmpty());
+            for (final Runnable callback : frame) {
+                callback.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ImageHeaderParserTest {
+    private static final int JPEG_SOF0 = 0xC0;
+    private static final int JPEG_SOF2 = 0xC2;
+
+    @Test
+    public void jpegWithoutExif() throws IOException {
+        final byte[] jpeg = TestImages.jpeg(40, 30);
+        assertTrue(findMarker(jpeg, JPEG_SOF0) > 0);
+
+        assertHeader(40, 30, 0, jpeg);
+    }
+
+    @Test
+    public void progressiveJpeg() throws IOException {
+        final byte[] jpeg = progressiveJpeg(40, 30);
+        assertTrue(findMarker(jpeg, JPEG_SOF2) > 0);
+
+        assertHeader(40, 30, 0, jpeg);
+    }
+
+    @Test
+    public void jpegExifOrientations() throws IOException {
+        final byte[] jpeg = TestImages.jpeg(40, 30);
+
+        assertHeader(40, 30, 0, withApp1(jpeg, exif(true, 1)));
+        assertHeader(40, 30, 180, withApp1(jpeg, exif(true, 3)));
+        assertHeader(40, 30, 90, withApp1(jpeg, exif(true, 6)));
+        assertHeader(40, 30, 270, withApp1(jpeg, exif(true, 8)));
+        assertHeader(40, 30, 180, withApp1(jpeg, exif(false, 3)));
+        assertHeader(40, 30, 90, withApp1(jpeg, exif(false, 6)));
+        assertHeader(40, 30, 270, withApp1(jpeg, exif(false, 8)));
+    }
+
+    @Test
+    public void progressiveJpegWithExif() throws IOException {
+        assertHeader(40, 30, 90, withApp1(progressiveJpeg(40, 30), exif(true, 6)));
+    }
+
+    @Test
+    public void jpegWithMalformedExif() throws IOException {
+        final byte[] jpeg = TestImages.jpeg(40, 30);
+        final byte[] exif = exif(true, 6);
+        exif[6] = 'X'; // Neither "MM" nor "II".
+
+        assertHeader(40, 30, ImageHeaderParser.EXIF_ROTATION_UNKNOWN, withApp1(jpeg, exif));
+    }
+
+    @Test
+    public void jpegWithNonExifApp1() throws IOException {
+        final byte[] xmp = "http://ns.adobe.com/xap/1.0/\0<x:xmpmeta/>".getBytes("US-ASCII");
+
+        assertHeader(40, 30, 0, withApp1(TestImages.jpeg(40, 30), xmp));
+    }
+
+    @Test
+    public void jpegHeaderBeyondLimit() throws IOException {
+        final byte[] jpeg = TestImages.jpeg(40, 30);
+        final byte[] padding = new byte[40 * 1024];
+
+        assertNull(parse(withApp1(withApp1(jpeg, padding), padding)));
+    }
+
+    @Test
+    public void png() throws IOException {
+        assertHeader(40, 30, 0, TestImages.png(40, 30));
+    }
+
+    @Test
+    public void gif() throws IOException {
+        assertHeader(40, 30, 0, TestImages.gif(40, 30));
+    }
+
+    @Test
+    public void webpLossy() throws IOException {
+        assertHeader(400, 300, 0, TestImages.webpLossy(400, 300));
+    }
+
+    @Test
+    public void webpLossless() throws IOException {
+        assertHeader(400, 300, 0, TestImages.webpLossless(400, 300, true));
+        assertHeader(16384, 1, 0, TestImages.webpLossless(16384, 1, false));
+    }
+
+    @Test
+    public void webpExtended() throws IOException {
+        assertHeader(400, 300, 0, TestImages.webp(400, 300, 64));
+        assertHeader(1 << 24, 1, 0, TestImages.webp(1 << 24, 1, 64));
+    }
+
+    @Test
+    public void truncatedInputs() throws IOException {
+        final byte[] jpeg = withApp1(TestImages.jpeg(40, 30), exif(true, 6));
+        // Cut anywhere before the end of the frame header's dimensions.
+        assertTruncated(jpeg, findMarker(jpeg, JPEG_SOF0) + 7);
+        assertTruncated(TestImages.png(40, 30), 24);
+        assertTruncated(TestImages.gif(40, 30), 10);
+        assertTruncated(TestImages.webpLossy(400, 300), 30);
+        assertTruncated(TestImages.webpLossless(400, 300, false), 25);
+        assertTruncated(TestImages.webp(400, 300, 64), 30);
+    }
+
+    @Test
+    public void garbageInputs() throws IOException {
+        assertNull(parse(new byte[0]));
+        assertNull(parse(new byte[64]));
+        assertNull(parse("GIF87b".getBytes("US-ASCII")));
+        assertNull(parse("RIFF\0\0\0\0WAVEfmt ".getBytes("US-ASCII")));
+
+        final byte[] wrongChunk = TestImages.png(40, 30);
+        wrongChunk[12] = 'X';
+        assertNull(parse(wrongChunk));
+
+        final byte[] unknownWebp = TestImages.webpLossy(400, 300);
+        TestImages.ascii(unknownWebp, 12, "ALPH");
+        assertNull(parse(unknownWebp));
+
+        final byte[] badStartCode = TestImages.webpLossy(400, 300);
+        badStartCode[23] = 0;
+        assertNull(parse(badStartCode));
+
+        // Image data before any frame header.
+        assertNull(parse(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xDA, 0, 2}));
+
+        final Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            final byte[] bytes = new byte[random.nextInt(256)];
+            random.nextBytes(bytes);
+            // Noise must never throw, and whatever it yields must be a usable size.
+            final ImageHeaderParser.Header header = parse(bytes);
+            if (header != null) {
+                assertTrue(header.width > 0 && header.height > 0);
+            }
+        }
+    }
+
+    private static void assertHeader(final int width, final int height, final int exifRotation,
+                                     final byte[] image) throws IOException {
+        final ImageHeaderParser.Header header = parse(image);
+        assertNotNull(header);
+        assertEquals(width, header.width);
+        assertEquals(height, header.height);
+        assertEquals(exifRotation, header.exifRotation);
+    }
+
+    private static void assertTruncated(final byte[] image, final int headerEnd) throws IOException {
+        assertNotNull(parse(image));
+        for (int length = 0; length < headerEnd; length++) {
+            assertNull("Truncated to " + length, parse(Arrays.copyOf(image, length)));
+        }
+    }
+
+    private static ImageHeaderParser.Header parse(final byte[] image) throws IOException {
+        return ImageHeaderParser.parse(new ByteArrayInputStream(image));
+    }
+
+    private static int findMarker(final byte[] jpeg, final int marker) {
+        for (int i = 2; i + 1 < jpeg.length; i++) {
+            if ((jpeg[i] & 0xFF) == 0xFF && (jpeg[i + 1] & 0xFF) == marker) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A JPEG written in progressive mode, which uses an SOF2 frame header.
+     */
+    private static byte[] progressiveJpeg(final int width, final int height) throws IOException {
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ImageOutputStream ios = ImageIO.createImageOutputStream(out);
+        try {
+            writer.setOutput(ios);
+            final ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), null, null),
+                    param);
+        } finally {
+            ios.close();
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * An EXIF APP1 payload with a single orientation entry.
+     */
+    private static byte[] exif(final boolean bigEndian, final int orientation) {
+        final byte[] exif = new byte[6 + 8 + 2 + 12 + 4];
+        TestImages.ascii(exif, 0, "Exif");
+        TestImages.ascii(exif, 6, bigEndian ? "MM" : "II");
+        putShort(exif, 8, 42, bigEndian);
+        putInt(exif, 10, 8, bigEndian); // First IFD, relative to the byte order mark.
+        putShort(exif, 14, 1, bigEndian); // Entry count.
+        putShort(exif, 16, 0x0112, bigEndian);
+        putShort(exif, 18, 3, bigEndian); // SHORT.
+        putInt(exif, 20, 1, bigEndian);
+        putShort(exif, 24, orientation, bigEndian);
+        return exif;
+    }
+
+    private static void putShort(final byte[] data, final int offset, final int value, final boolean bigEndian) {
+        data[offset] = (byte) (bigEndian ? value >> 8 : value);
+        data[offset + 1] = (byte) (bigEndian ? value : value >> 8);
+    }
+
+    private static void putInt(final byte[] data, final int offset, final int value, final boolean bigEndian) {
+        putShort(data, bigEndian ? offset : offset + 2, value >>> 16, bigEndian);
+        putShort(data, bigEndian ? offset + 2 : offset, value & 0xFFFF, bigEndian);
+    }
+
+    /**
+     * Insert an APP1 segment right after the start of image marker.
+     */
+    private static byte[] withApp1(final byte[] jpeg, final byte[] payload) {
+        final byte[] result = new byte[jpeg.length + 4 + payload.length];
+        result[0] = jpeg[0];
+        result[1] = jpeg[1];
+        result[2] = (byte) 0xFF;
+        result[3] = (byte) 0xE1;
+        putShort(result, 4, payload.length + 2, true);
+        System.arraycopy(payload, 0, result, 6, payload.length);
+        System.arraycopy(jpeg, 2, result, 6 + payload.length, jpeg.length - 2);
+        return result;
+    }
+}
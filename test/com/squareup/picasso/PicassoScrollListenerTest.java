@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.widget.AbsListView;
+import android.widget.ImageView;
+
+import static android.widget.AbsListView.OnScrollListener.SCROLL_STATE_FLING;
+import static android.widget.AbsListView.OnScrollListener.SCROLL_STATE_IDLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PicassoScrollListenerTest {
+    private static final Object TAG = "list";
+    private static final int ROWS = 5;
+
+    private final AbsListView list = new AbsListView() {
+    };
+    private final List<ImageView> rows = new ArrayList<ImageView>();
+    private FakeDownloader downloader;
+    private Picasso picasso;
+    private PicassoScrollListener listener;
+
+    @Before
+    public void setUp() throws Exception {
+        downloader = new FakeDownloader();
+        downloader.hold();
+        picasso = new Picasso.Builder(new FakeContext()).downloader(downloader).build();
+        listener = new PicassoScrollListener(picasso, TAG);
+        onMain(new Callable<Void>() {
+            @Override
+            public Void call() {
+                for (int i = 0; i < ROWS; i++) {
+                    final Uri uri = Uri.parse("http://example.com/" + i + ".png");
+                    downloader.put(uri, TestImages.encoded(100, 100));
+                    final ImageView row = new ImageView();
+                    list.addView(row);
+                    rows.add(row);
+                    picasso.load(uri).tag(TAG).into(row);
+                }
+                listener.onScroll(list, 0, ROWS, 100);
+                return null;
+            }
+        });
+        // The first rows fill every network thread and wait there. The rest stay queued.
+        awaitLoads(3);
+    }
+
+    @After
+    public void tearDown() {
+        downloader.release();
+        picasso.shutdown();
+    }
+
+    @Test
+    public void flingLowersRowsWhichLeftAndSettleCancelsThem() throws Exception {
+        onMain(new Callable<Void>() {
+            @Override
+            public Void call() {
+                listener.onScrollStateChanged(list, SCROLL_STATE_FLING);
+                // The first three rows were recycled, the last two moved to the top.
+                for (int i = 0; i < 3; i++) {
+                    list.removeView(rows.get(i));
+                }
+                list.setFirstVisiblePosition(3);
+                listener.onScroll(list, 3, ROWS, 100);
+                return null;
+            }
+        });
+        assertTrue(isPaused());
+        for (int i = 0; i < ROWS; i++) {
+            final Picasso.Priority expected = i < 3 ? Picasso.Priority.LOW : Picasso.Priority.NORMAL;
+            assertEquals(expected, actionPriority(rows.get(i)));
+        }
+
+        onMain(new Callable<Void>() {
+            @Override
+            public Void call() {
+                listener.onScrollStateChanged(list, SCROLL_STATE_IDLE);
+                return null;
+            }
+        });
+        assertFalse(isPaused());
+        assertEquals(3, listener.getSkippedRequestCount());
+        final int remaining = onMain(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return picasso.targetToAction.size();
+            }
+        });
+        assertEquals(2, remaining);
+    }
+
+    @Test
+    public void detachMidFlingResumesTheTag() throws Exception {
+        onMain(new Callable<Void>() {
+            @Override
+            public Void call() {
+                listener.onScrollStateChanged(list, SCROLL_STATE_FLING);
+                listener.onScroll(list, 50, ROWS, 100);
+                return null;
+            }
+        });
+        assertTrue(isPaused());
+
+        onMain(new Callable<Void>() {
+            @Override
+            public Void call() {
+                list.dispatchDetachedFromWindow();
+                return null;
+            }
+        });
+        assertFalse(isPaused());
+        assertEquals(0, listener.getSkippedRequestCount());
+    }
+
+    private void awaitLoads(final int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (int i = 0; i < count; i++) {
+            final Uri uri = Uri.parse("http://example.com/" + i + ".png");
+            while (downloader.loadCount(uri) == 0) {
+                assertTrue("Load of " + uri + " never started.", System.nanoTime() < deadline);
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    private boolean isPaused() throws Exception {
+        return on(picasso.dispatcher.handler, new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return picasso.dispatcher.pausedTags.contains(TAG);
+            }
+        });
+    }
+
+    /**
+     * Returns the priority the dispatcher holds for the request of {@code row}.
+     */
+    private Picasso.Priority actionPriority(final ImageView row) throws Exception {
+        final Action action = onMain(new Callable<Action>() {
+            @Override
+            public Action call() {
+                return picasso.targetToAction.get(row);
+            }
+        });
+        return on(picasso.dispatcher.handler, new Callable<Picasso.Priority>() {
+            @Override
+            public Picasso.Priority call() {
+                return action.getPriority();
+            }
+        });
+    }
+
+    private static <T> T onMain(final Callable<T> callable) throws Exception {
+        return on(Picasso.HANDLER, callable);
+    }
+
+    private static <T> T on(final Handler handler, final Callable<T> callable) throws Exception {
+        final FutureTask<T> task = new FutureTask<T>(callable);
+        handler.post(task);
+        return task.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import android.net.Uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrefetchTest {
+    private static final Object TAG = "prefetch";
+
+    private final List<Request> requests = new ArrayList<Request>();
+    private FakeDownloader downloader;
+    private Picasso picasso;
+
+    @Before
+    public void setUp() {
+        downloader = new FakeDownloader();
+        picasso = new Picasso.Builder(new FakeContext()).downloader(downloader).build();
+        for (int i = 0; i < 3; i++) {
+            final Uri uri = Uri.parse("http://example.com/" + i + ".png");
+            downloader.put(uri, TestImages.encoded(100, 100));
+            requests.add(new Request.Builder(uri).build());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        downloader.release();
+        picasso.shutdown();
+    }
+
+    @Test
+    public void cancellingTheTagFinishesRunningRequestsAndTheBatchMovesOn() throws Exception {
+        downloader.hold();
+        final Prefetch prefetch = start(new PrefetchOptions.Builder().maxConcurrent(1).tag(TAG).build());
+        awaitLoad(requests.get(0).uri);
+
+        cancelTag();
+        downloader.release();
+
+        awaitDone(prefetch);
+        assertFalse(prefetch.isCancelled());
+        assertEquals(1, prefetch.getFailed());
+        assertEquals(2, prefetch.getSucceeded());
+    }
+
+    @Test
+    public void cancellingAPausedTagFinishesTheHeldRequests() throws Exception {
+        picasso.pauseTag(TAG);
+        final Prefetch prefetch = start(new PrefetchOptions.Builder().maxConcurrent(3).tag(TAG).build());
+
+        cancelTag();
+
+        awaitDone(prefetch);
+        assertEquals(3, prefetch.getFailed());
+        assertEquals(0, downloader.loadCount(requests.get(0).uri));
+    }
+
+    @Test
+    public void cancellingTheBatchCountsNothingAsFailed() throws Exception {
+        downloader.hold();
+        final Prefetch prefetch = start(new PrefetchOptions.Builder().maxConcurrent(2).tag(TAG).build());
+        awaitLoad(requests.get(0).uri);
+
+        onMain(new Callable<Void>() {
+            @Override
+            public Void call() {
+                prefetch.cancel();
+                return null;
+            }
+        });
+
+        assertTrue(prefetch.isDone());
+        assertEquals(0, prefetch.getFailed());
+    }
+
+    private Prefetch start(final PrefetchOptions options) throws Exception {
+        return onMain(new Callable<Prefetch>() {
+            @Override
+            public Prefetch call() {
+                return picasso.prefetch(requests, options);
+            }
+        });
+    }
+
+    private void cancelTag() throws Exception {
+        onMain(new Callable<Void>() {
+            @Override
+            public Void call() {
+                picasso.cancelTag(TAG);
+                return null;
+            }
+        });
+    }
+
+    private void awaitLoad(final Uri uri) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (downloader.loadCount(uri) == 0) {
+            assertTrue("Load of " + uri + " never started.", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitDone(final Prefetch prefetch) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!prefetch.isDone()) {
+            assertTrue("The prefetch stalled.", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static <T> T onMain(final Callable<T> callable) throws Exception {
+        final FutureTask<T> task = new FutureTask<T>(callable);
+        Picasso.HANDLER.post(task);
+        return task.get(5, TimeUnit.SECONDS);
+    }
+}
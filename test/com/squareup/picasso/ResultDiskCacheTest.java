@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ResultDiskCacheTest {
+    private File directory;
+    private ResultDiskCache cache;
+    private final RequestKey key =
+            Utils.createKey(new Request.Builder(Uri.parse("http://example.com/a.png")).resize(10, 10).build());
+
+    @Before
+    public void setUp() {
+        directory = new File(new FakeContext().getCacheDir(), "results");
+        cache = new ResultDiskCache(directory, 1024 * 1024);
+    }
+
+    @Test
+    public void storesOpaqueImagesAsJpeg() throws Exception {
+        final Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.RGB_565);
+        cache.set(key, bitmap);
+        awaitWrite();
+
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        final Bitmap cached = cache.get(key, options);
+
+        assertNotNull(cached);
+        assertEquals("image/jpeg", options.outMimeType);
+    }
+
+    @Test
+    public void storesTransparentImagesAsPng() throws Exception {
+        final Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+        cache.set(key, bitmap);
+        awaitWrite();
+
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        final Bitmap cached = cache.get(key, options);
+
+        assertNotNull(cached);
+        assertEquals("image/png", options.outMimeType);
+    }
+
+    @Test
+    public void forgetsCorruptEntries() throws Exception {
+        cache.set(key, Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+        awaitWrite();
+        final File file = new File(directory, ResultDiskCache.nameFor(key.toString()));
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[32]);
+        } finally {
+            out.close();
+        }
+
+        assertNull(cache.get(key, new BitmapFactory.Options()));
+        assertEquals(0, cache.size());
+    }
+
+    private void awaitWrite() throws InterruptedException, IOException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (cache.size() == 0) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IOException("Nothing was written");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import android.graphics.Bitmap;
+
+/**
+ * Encoded images for tests and benchmarks.
+ */
+final class TestImages {
+    private TestImages() {
+    }
+
+    /**
+     * An image only the shadow decoder reads, which is cheap to produce at any size.
+     */
+    static byte[] encoded(final int width, final int height) {
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+
+    static byte[] jpeg(final int width, final int height) {
+        return write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpeg");
+    }
+
+    static byte[] png(final int width, final int height) {
+        return write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png");
+    }
+
+    static byte[] gif(final int width, final int height) {
+        return write(new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED), "gif");
+    }
+
+    /**
+     * An extended WebP header for a {@code width} by {@code height} image, padded with a metadata
+     * chunk to {@code length} bytes.
+     */
+    static byte[] webp(final int width, final int height, final int length) {
+        final byte[] data = new byte[Math.max(length, 38)];
+        ascii(data, 0, "RIFF");
+        int32(data, 4, data.length - 8);
+        ascii(data, 8, "WEBPVP8X");
+        int32(data, 16, 10);
+        int24(data, 24, width - 1);
+        int24(data, 27, height - 1);
+        ascii(data, 30, "EXIF");
+        int32(data, 34, data.length - 38);
+        return data;
+    }
+
+    /**
+     * A lossy WebP header for a {@code width} by {@code height} image.
+     */
+    static byte[] webpLossy(final int width, final int height) {
+        final byte[] data = new byte[30];
+        ascii(data, 0, "RIFF");
+        int32(data, 4, data.length - 8);
+        ascii(data, 8, "WEBPVP8 ");
+        int32(data, 16, data.length - 20);
+        // Key frame tag, then the start code and the 14-bit dimensions.
+        data[23] = (byte) 0x9d;
+        data[24] = 0x01;
+        data[25] = 0x2a;
+        int16(data, 26, width);
+        int16(data, 28, height);
+        return data;
+    }
+
+    /**
+     * A lossless WebP header for a {@code width} by {@code height} image.
+     */
+    static byte[] webpLossless(final int width, final int height, final boolean alpha) {
+        final byte[] data = new byte[30];
+        ascii(data, 0, "RIFF");
+        int32(data, 4, data.length - 8);
+        ascii(data, 8, "WEBPVP8L");
+        int32(data, 16, data.length - 20);
+        data[20] = 0x2f;
+        int32(data, 21, (width - 1) | (height - 1) << 14 | (alpha ? 1 << 28 : 0));
+        return data;
+    }
+
+    static void ascii(final byte[] data, final int offset, final String text) {
+        for (int i = 0; i < text.length(); i++) {
+            data[offset + i] = (byte) text.charAt(i);
+        }
+    }
+
+    static void int16(final byte[] data, final int offset, final int value) {
+        data[offset] = (byte) value;
+        data[offset + 1] = (byte) (value >> 8);
+    }
+
+    static void int24(final byte[] data, final int offset, final int value) {
+        data[offset] = (byte) value;
+        data[offset + 1] = (byte) (value >> 8);
+        data[offset + 2] = (byte) (value >> 16);
+    }
+
+    static void int32(final byte[] data, final int offset, final int value) {
+        int24(data, offset, value);
+        data[offset + 3] = (byte) (value >> 24);
+    }
+
+    private static byte[] write(final BufferedImage image, final String format) {
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!ImageIO.write(image, format, out)) {
+                throw new IllegalStateException("No writer for " + format);
+            }
+            return out.toByteArray();
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.squareup.picasso;
+
+import org.junit.Test;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class VariantIndexTest {
+    private final Uri uri = Uri.parse("http://example.com/photo.png");
+    private final Cache cache = new LruCache(64 * 1024 * 1024);
+    private final VariantIndex index = new VariantIndex();
+
+    @Test
+    public void fullSourceKeepsItsLargestVariants() {
+        // The largest variant arrives first, as it does when a leader serves its followers.
+        put(400, 300);
+        put(300, 225);
+        put(133, 100);
+        put(100, 75);
+        put(50, 38);
+
+        final Bitmap bitmap = find(400, 300);
+        assertNotNull(bitmap);
+        assertEquals(400, bitmap.getWidth());
+    }
+
+    @Test
+    public void findPicksTheSmallestVariantThatServesTheRequest() {
+        put(400, 300);
+        put(200, 150);
+        put(100, 75);
+
+        assertEquals(200, find(150, 150).getWidth());
+    }
+
+    private void put(final int width, final int height) {
+        final RequestKey key = Utils.createKey(request(width, height));
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        cache.set(key, bitmap);
+        index.put(key, bitmap);
+    }
+
+    private Bitmap find(final int width, final int height) {
+        final Request data = request(width, height);
+        return index.find(data, Utils.createKey(data), cache);
+    }
+
+    private Request request(final int width, final int height) {
+        return new Request.Builder(uri).resize(width, height).centerInside().build();
+    }
+}